@@ -3,8 +3,10 @@ package controller;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
+import javax.swing.JOptionPane;
 import javax.swing.Timer;
 
+import cs5004.animator.util.AnimationFollower;
 import model.IModel;
 import view.EditorView;
 import view.IEditorView;
@@ -17,6 +19,7 @@ public class Controller {
   private final IEditorView view;
   private final IModel model;
   private final Timer timer;
+  private AnimationFollower<?> follower;
   private int tick = 0;
   private int[] predefinedSpeeds = {50, 75, 100, 150, 200, 300, 400, 600, 800, 1200, 1600, 2400,
       3200, 4800, 6400};
@@ -31,6 +34,21 @@ public class Controller {
    * @param playSpeed user specified play speed for the animation
    */
   public Controller(IEditorView view, IModel model, String playSpeed) {
+    this(view, model, playSpeed, null);
+  }
+
+  /**
+   * A method to construct a controller that also follows an animation file that is still being
+   * written. Before each frame is drawn, whatever the follower has read since the last frame is
+   * added to the model, so the animation, and the tick it ends at, grow with the file.
+   * @param view a view of type IView to be displayed to the user
+   * @param model a model of type IModel from which the animation is generated
+   * @param playSpeed user specified play speed for the animation
+   * @param follower the follower of the file the model was read from, building into the model,
+   *          or null to play the model as it is
+   */
+  public Controller(IEditorView view, IModel model, String playSpeed,
+                    AnimationFollower<?> follower) {
     int speed = Integer.parseInt(playSpeed);
     int i;
     for (i = 0; i < predefinedSpeeds.length; i++) {
@@ -38,6 +56,7 @@ public class Controller {
     }
     this.view = view;
     this.model = model;
+    this.follower = follower;
     this.loopToggle = false;
     this.timer = new Timer(predefinedSpeeds[currentSpeed], new ActionListener() {
       /**
@@ -47,6 +66,7 @@ public class Controller {
        */
       @Override
       public void actionPerformed(ActionEvent e) {
+        follow();
         if (loopToggle && tick > model.getFinalTick()) {
           tick = 0;
         }
@@ -58,6 +78,23 @@ public class Controller {
     this.setActionListeners();
   }
 
+  /**
+   * A method to add whatever the follower has read to the model. When the file turns out to be
+   * invalid, following stops and the animation read so far keeps playing.
+   */
+  private void follow() {
+    if (follower == null) {
+      return;
+    }
+    try {
+      follower.apply();
+    } catch (RuntimeException e) {
+      follower.close();
+      follower = null;
+      JOptionPane.showMessageDialog(null, "Stopped following the file: " + e.getMessage());
+    }
+  }
+
   /**
    * A method to set up action listeners for an animation.
    */
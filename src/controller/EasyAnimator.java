@@ -1,20 +1,27 @@
 package controller;
 
+import cs5004.animator.util.AnimationBinary;
+import cs5004.animator.util.AnimationBuilder;
+import cs5004.animator.util.AnimationFollower;
 import cs5004.animator.util.AnimationReader;
+import cs5004.animator.util.DeflatingStream;
+import cs5004.animator.util.ExportSink;
 
 import java.util.Arrays;
 import java.util.List;
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import javax.swing.JOptionPane;
 import model.IModel;
+import model.LazyModel;
 import model.Model;
+import model.PackedModel;
 import view.EditorView;
 import view.GraphicalViewFrame;
 import view.IEditorView;
 import view.SVGView;
+import view.StreamingSVGView;
 import view.TextView;
 
 
@@ -34,9 +41,19 @@ public class EasyAnimator {
   private static String playSpeed = "1";
   private static double playSpeedDouble = Double.parseDouble(playSpeed);
   private static long playSpeedLong = Long.parseLong(playSpeed);
-  private static final String[] acceptableViewTypes = {"text", "visual", "svg", "playback"};
+  private static final String[] acceptableViewTypes = {"text", "visual", "svg", "svgz",
+      "playback"};
   private static final List<String> acceptableViewTypesArray = Arrays.asList(acceptableViewTypes);
+  private static String modelType = "default";
+  private static final int LAZY_MOTIONS = 1 << 20;
+  private static final String[] acceptableModelTypes = {"default", "packed", "lazy"};
+  private static final List<String> acceptableModelTypesArray =
+          Arrays.asList(acceptableModelTypes);
   private static boolean looping;
+  private static boolean following;
+  private static boolean compact;
+  private static boolean overwriting;
+  private static final long FOLLOW_INTERVAL = 200;
 
   /**
    * A method to construct a main driver function for the animation.
@@ -89,12 +106,40 @@ public class EasyAnimator {
           }
           if (!acceptableViewTypesArray.contains(viewType)) {
             JOptionPane.showMessageDialog(null,
-                    "Your view parameter is not one of the allowed options. Try svg, text,"
+                    "Your view parameter is not one of the allowed options. Try svg, svgz, text,"
                             + "or visual.");
             throw new IllegalArgumentException("View type does not conform.");
           }
         }
 
+        if (s.equals("-model")) {
+          int modelIndex = argsArray.indexOf(s);
+          try {
+            modelType = argsArray.get(modelIndex + 1);
+          } catch (IndexOutOfBoundsException e) {
+            JOptionPane.showMessageDialog(null,
+                    "No supplied argument to model parameter!");
+          }
+          if (!acceptableModelTypesArray.contains(modelType)) {
+            JOptionPane.showMessageDialog(null,
+                    "Your model parameter is not one of the allowed options. Try default, "
+                            + "packed or lazy.");
+            throw new IllegalArgumentException("Model type does not conform.");
+          }
+        }
+
+        if (s.equals("-follow")) {
+          following = true;
+        }
+
+        if (s.equals("-compact")) {
+          compact = true;
+        }
+
+        if (s.equals("-overwrite")) {
+          overwriting = true;
+        }
+
         if (s.equals("-speed")) {
           int speedIndex = argsArray.indexOf(s);
           try {
@@ -105,14 +150,75 @@ public class EasyAnimator {
           }
         }
       }
-      BufferedReader reader = new BufferedReader(new FileReader(inputString));
-      IModel yourModel = AnimationReader.parseFile(reader, new Model.Builder());
+      Path input = Path.of(inputString);
+      boolean svg = viewType.equals("svg") || viewType.equals("svgz");
+      if (svg && !AnimationBinary.isBinary(input)) {
+        try (ExportSink sink = openOutput()) {
+          DeflatingStream gzip = deflaterFor(sink);
+          try {
+            new StreamingSVGView(input, gzip != null ? gzip : sink, playSpeedDouble,
+                    Runtime.getRuntime().availableProcessors() > 1, compact);
+            if (gzip != null) {
+              gzip.close();
+            }
+          } finally {
+            if (gzip != null) {
+              gzip.abort();
+            }
+          }
+          sink.commit();
+        }
+        return;
+      }
+      AnimationBuilder<IModel> builder;
+      if (modelType.equals("packed")) {
+        builder = new PackedModel.Builder();
+      }
+      else {
+        builder = new Model.Builder();
+      }
+      AnimationFollower<IModel> follower = null;
+      boolean seekable = !AnimationBinary.isBinary(input) && !AnimationReader.isCompressed(input);
+      IModel yourModel;
+      if (following && viewType.equals("playback") && seekable) {
+        follower = new AnimationFollower<>(input, builder);
+        follower.poll();
+        follower.apply();
+        yourModel = builder.build();
+        follower.start(FOLLOW_INTERVAL);
+      }
+      else if (modelType.equals("lazy") && seekable) {
+        yourModel = new LazyModel(input, LAZY_MOTIONS);
+      }
+      else if (AnimationBinary.isBinary(input)) {
+        yourModel = AnimationBinary.read(input, builder);
+      }
+      else {
+        yourModel = AnimationReader.parsePathParallel(input, builder);
+      }
 
       if (viewType.equals("text")) {
-        new TextView(yourModel, outputString);
+        try (ExportSink sink = openOutput()) {
+          new TextView(yourModel, sink);
+          sink.commit();
+        }
       }
-      else if (viewType.equals("svg")) {
-        new SVGView(yourModel, outputString, playSpeedDouble);
+      else if (svg) {
+        try (ExportSink sink = openOutput()) {
+          DeflatingStream gzip = deflaterFor(sink);
+          try {
+            new SVGView(yourModel, gzip != null ? gzip : sink, playSpeedDouble,
+                    Runtime.getRuntime().availableProcessors() > 1, compact);
+            if (gzip != null) {
+              gzip.close();
+            }
+          } finally {
+            if (gzip != null) {
+              gzip.abort();
+            }
+          }
+          sink.commit();
+        }
         return;
       }
       else if (viewType.equals("visual")) {
@@ -135,10 +241,34 @@ public class EasyAnimator {
         IEditorView view = new EditorView(yourModel.getFrame().getWidth(),
                 yourModel.getFrame().getHeight(), yourModel);
 
-        new Controller(view, yourModel, playSpeed);
+        new Controller(view, yourModel, playSpeed, follower);
       }
     }
   }
+
+  /**
+   * A method to open the output of an exporting view: the file named by -out, replaced only if
+   * -overwrite is given, or the standard output when -out is "-" or not given.
+   * @return the sink to export to, which must be committed for a file to appear
+   * @throws IOException when the file cannot be created
+   */
+  private static ExportSink openOutput() throws IOException {
+    return ExportSink.open(outputString.equals("") ? ExportSink.STDOUT : outputString,
+            overwriting);
+  }
+
+  /**
+   * A method to open the stream that compresses the svg for the svgz view. It gzip compresses
+   * into the sink on another thread while the svg is written, and must be closed when the svg is
+   * complete, or aborted when it is not, before the sink is committed or closed.
+   * @param sink the output of the view
+   * @return the compressing stream for the svgz view, or null for the svg view, which writes to
+   *          the sink itself
+   * @throws IOException when the gzip header cannot be written
+   */
+  private static DeflatingStream deflaterFor(ExportSink sink) throws IOException {
+    return viewType.equals("svgz") ? new DeflatingStream(sink) : null;
+  }
 }
 
 
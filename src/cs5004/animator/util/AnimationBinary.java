@@ -0,0 +1,430 @@
+package cs5004.animator.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A helper to store animations in a compact binary format and to read them back, which is much
+ * faster than parsing the text format.
+ *
+ * <p>
+ * A binary animation file starts with the four bytes {@code ANIM}, a version number and the
+ * length of the header that follows. The header holds the canvas bounds and a table of the shapes
+ * in the order they were declared, giving for each its name, its type, its number of motions, and
+ * the position and length of its block of motions. The blocks follow the header, one per shape.
+ * Each motion in a block is stored as its sixteen values, in the order of the arguments of
+ * {@link AnimationBuilder#addMotion} but with positions relative to the canvas, and each value is
+ * stored as its difference from the same value of the motion before it, as a zigzag varint. Since
+ * consecutive motions of a shape usually differ little, most values take a single byte.
+ * </p>
+ *
+ * <p>
+ * Because every shape has a block of its own, a reader can load some of the shapes without
+ * reading the motions of the others.
+ * </p>
+ */
+public final class AnimationBinary {
+  private static final int MAGIC = 0x414E494D;
+  private static final int VERSION = 1;
+
+  private AnimationBinary() {
+  }
+
+  /**
+   * Converts an animation in the text format described at {@link AnimationReader#parseFile} to
+   * the binary format.
+   *
+   * @param text   the file in the text format
+   * @param binary the file to write in the binary format
+   * @throws IOException when either file cannot be opened, read or written
+   */
+  public static void convert(Path text, Path binary) throws IOException {
+    try {
+      AnimationReader.parsePathParallel(text, new Writer(binary));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Determines whether a file is in the binary format, by looking at its first bytes.
+   *
+   * @param path the file to check
+   * @return true if the file starts like a binary animation, false otherwise
+   * @throws IOException when the file cannot be opened or read
+   */
+  public static boolean isBinary(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer start = ByteBuffer.allocate(4);
+      while (start.hasRemaining() && channel.read(start) > 0) {
+        continue;
+      }
+      return !start.hasRemaining() && start.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * A factory for producing new animations from a binary animation file. The builder is given the
+   * canvas bounds, then every shape in the order they were declared, then the motions of each shape
+   * in turn, as a single call to {@link AnimationBuilder#addMotions} per shape.
+   *
+   * @param path    the binary animation file
+   * @param builder A builder for helping to construct a new animation
+   * @param <Doc>   The main model interface type describing animations
+   * @return the animation built from the file
+   * @throws IOException           when the file cannot be opened or read
+   * @throws IllegalStateException when the file is not a binary animation
+   */
+  public static <Doc> Doc read(Path path, AnimationBuilder<Doc> builder) throws IOException {
+    return read(path, builder, null);
+  }
+
+  /**
+   * A factory for producing new animations from some of the shapes of a binary animation file.
+   * Only the blocks of the chosen shapes are read, so the time taken depends on the size of those
+   * shapes rather than the size of the whole file. Names that are not in the file are ignored.
+   *
+   * @param path    the binary animation file
+   * @param builder A builder for helping to construct a new animation
+   * @param shapes  the names of the shapes to load, or null to load every shape
+   * @param <Doc>   The main model interface type describing animations
+   * @return the animation built from the chosen shapes of the file
+   * @throws IOException           when the file cannot be opened or read
+   * @throws IllegalStateException when the file is not a binary animation
+   */
+  public static <Doc> Doc read(Path path, AnimationBuilder<Doc> builder,
+                               Collection<String> shapes) throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+              Channels.newInputStream(channel)));
+      if (in.readInt() != MAGIC) {
+        throw new IllegalStateException("Not a binary animation file");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IllegalStateException("Unsupported binary animation version: " + version);
+      }
+      long data = 12 + in.readInt();
+      int left = 0;
+      int top = 0;
+      if (in.readBoolean()) {
+        left = in.readInt();
+        top = in.readInt();
+        builder.setBounds(left, top, in.readInt(), in.readInt());
+      }
+      int count = in.readInt();
+      String[] names = new String[count];
+      int[] counts = new int[count];
+      long[] offsets = new long[count];
+      int[] lengths = new int[count];
+      for (int i = 0; i < count; i++) {
+        names[i] = in.readUTF();
+        String type = in.readUTF();
+        counts[i] = in.readInt();
+        offsets[i] = in.readLong();
+        lengths[i] = in.readInt();
+        if (shapes == null || shapes.contains(names[i])) {
+          builder.declareShape(names[i], type);
+        }
+        else {
+          names[i] = null;
+        }
+      }
+      int[] motions = new int[0];
+      for (int i = 0; i < count; i++) {
+        if (names[i] == null || counts[i] == 0) {
+          continue;
+        }
+        ByteBuffer block = ByteBuffer.allocate(lengths[i]);
+        long position = data + offsets[i];
+        while (block.hasRemaining()) {
+          if (channel.read(block, position + block.position()) < 0) {
+            throw new IllegalStateException("Truncated block for shape " + names[i]);
+          }
+        }
+        block.flip();
+        if (motions.length < 16 * counts[i]) {
+          motions = new int[16 * counts[i]];
+        }
+        decode(block, motions, counts[i], left, top);
+        builder.addMotions(names[i], counts[i], motions, 0);
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * Converts the text animations named on the command line to binary animation files.
+   *
+   * @param args pairs of a text file to read and a binary file to write
+   * @throws IOException when a file cannot be opened, read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0 || args.length % 2 != 0) {
+      System.err.println("Usage: AnimationBinary text-file binary-file [text-file binary-file]...");
+      System.exit(1);
+    }
+    for (int i = 0; i < args.length; i += 2) {
+      convert(Path.of(args[i]), Path.of(args[i + 1]));
+    }
+  }
+
+  /**
+   * Decodes the motions of a block.
+   *
+   * @param block   the bytes of the block
+   * @param motions where to store the values of the motions, sixteen per motion
+   * @param count   the number of motions in the block
+   * @param left    the x-coordinate of the canvas, to add to every x-coordinate
+   * @param top     the y-coordinate of the canvas, to add to every y-coordinate
+   */
+  private static void decode(ByteBuffer block, int[] motions, int count, int left, int top) {
+    int[] previous = new int[16];
+    for (int i = 0; i < 16 * count; i++) {
+      int raw = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = block.get();
+        raw |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      previous[i & 15] += (raw >>> 1) ^ -(raw & 1);
+      motions[i] = previous[i & 15];
+    }
+    for (int i = 0; i < 16 * count; i += 8) {
+      motions[i + 1] += left;
+      motions[i + 2] += top;
+    }
+  }
+
+  /**
+   * A class to build a binary animation file from the statements of an animation. The motions of
+   * each shape are encoded into a block of their own as they arrive, and the file is written when
+   * the animation is built. Positions are stored relative to the canvas set when each motion
+   * arrives, as a model built from the statements would store them.
+   */
+  public static final class Writer implements AnimationBuilder<Path> {
+    private final Path path;
+    private final Map<String, Block> blocks;
+    private int[] bounds;
+
+    /**
+     * Constructs a writer for a binary animation file.
+     *
+     * @param path the file to write
+     */
+    public Writer(Path path) {
+      this.path = Objects.requireNonNull(path, "Must have non-null path");
+      this.blocks = new LinkedHashMap<>();
+      this.bounds = null;
+    }
+
+    /**
+     * Writes the file.
+     *
+     * @return the path of the file written
+     * @throws UncheckedIOException when the file cannot be written
+     */
+    @Override
+    public Path build() {
+      try (OutputStream file = Files.newOutputStream(path)) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream table = new DataOutputStream(header);
+        table.writeBoolean(bounds != null);
+        if (bounds != null) {
+          for (int value : bounds) {
+            table.writeInt(value);
+          }
+        }
+        table.writeInt(blocks.size());
+        long offset = 0;
+        for (Map.Entry<String, Block> entry : blocks.entrySet()) {
+          Block block = entry.getValue();
+          table.writeUTF(entry.getKey());
+          table.writeUTF(block.type);
+          table.writeInt(block.count);
+          table.writeLong(offset);
+          table.writeInt(block.size);
+          offset += block.size;
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(header.size());
+        header.writeTo(out);
+        for (Block block : blocks.values()) {
+          out.write(block.bytes, 0, block.size);
+        }
+        out.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return path;
+    }
+
+    /**
+     * Specify the bounding box to be used for the animation.
+     *
+     * @param x      The leftmost x value
+     * @param y      The topmost y value
+     * @param width  The width of the bounding box
+     * @param height The height of the bounding box
+     * @return This {@link AnimationBuilder}
+     */
+    @Override
+    public AnimationBuilder<Path> setBounds(int x, int y, int width, int height) {
+      bounds = new int[]{x, y, width, height};
+      return this;
+    }
+
+    /**
+     * Adds a new shape to the file.
+     *
+     * @param name The unique name of the shape to be added
+     * @param type The type of shape to be added
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when a shape with the name already exists
+     */
+    @Override
+    public AnimationBuilder<Path> declareShape(String name, String type) {
+      if (blocks.containsKey(name)) {
+        throw new IllegalArgumentException("ID must be unique!");
+      }
+      blocks.put(name, new Block(type));
+      return this;
+    }
+
+    /**
+     * Adds a motion of a shape to the file.
+     *
+     * @param name The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param t1   The start time of this transformation
+     * @param x1   The initial x-position of the shape
+     * @param y1   The initial y-position of the shape
+     * @param w1   The initial width of the shape
+     * @param h1   The initial height of the shape
+     * @param r1   The initial red color-value of the shape
+     * @param g1   The initial green color-value of the shape
+     * @param b1   The initial blue color-value of the shape
+     * @param t2   The end time of this transformation
+     * @param x2   The final x-position of the shape
+     * @param y2   The final y-position of the shape
+     * @param w2   The final width of the shape
+     * @param h2   The final height of the shape
+     * @param r2   The final red color-value of the shape
+     * @param g2   The final green color-value of the shape
+     * @param b2   The final blue color-value of the shape
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when no shape has the name
+     */
+    @Override
+    public AnimationBuilder<Path> addMotion(String name, int t1, int x1, int y1, int w1, int h1,
+                                            int r1, int g1, int b1, int t2, int x2, int y2,
+                                            int w2, int h2, int r2, int g2, int b2) {
+      return addMotions(name, 1, new int[]{t1, x1, y1, w1, h1, r1, g1, b1,
+          t2, x2, y2, w2, h2, r2, g2, b2}, 0);
+    }
+
+    /**
+     * Adds several motions of the same shape to the file.
+     *
+     * @param name    The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param count   The number of transformations to add
+     * @param motions The values of the transformations, sixteen per transformation
+     * @param offset  The position in the array of the first value of the first transformation
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when no shape has the name, or the motions do not fit in
+     *                                  the array
+     */
+    @Override
+    public AnimationBuilder<Path> addMotions(String name, int count, int[] motions, int offset) {
+      if (count < 0 || offset < 0 || offset > motions.length - 16L * count) {
+        throw new IllegalArgumentException("The motions do not fit in the given array");
+      }
+      Block block = blocks.get(name);
+      if (block == null) {
+        throw new IllegalArgumentException("No such shape found under given ID.");
+      }
+      block.add(motions, offset, count, bounds == null ? 0 : bounds[0],
+              bounds == null ? 0 : bounds[1]);
+      return this;
+    }
+  }
+
+  /**
+   * A class to represent the encoded motions of one shape.
+   */
+  private static final class Block {
+    private final String type;
+    private final int[] previous;
+    private byte[] bytes;
+    private int size;
+    private int count;
+
+    /**
+     * Constructs an empty block for a shape.
+     *
+     * @param type the type of the shape
+     */
+    private Block(String type) {
+      this.type = type;
+      this.previous = new int[16];
+      this.bytes = new byte[64];
+      this.size = 0;
+      this.count = 0;
+    }
+
+    /**
+     * Encodes motions onto the end of the block.
+     *
+     * @param motions the values of the motions, sixteen per motion
+     * @param offset  the position in the array of the first value
+     * @param count   the number of motions
+     * @param left    the x-coordinate of the canvas, to take from every x-coordinate
+     * @param top     the y-coordinate of the canvas, to take from every y-coordinate
+     */
+    private void add(int[] motions, int offset, int count, int left, int top) {
+      for (int i = 0; i < 16 * count; i++) {
+        int value = motions[offset + i];
+        if ((i & 7) == 1) {
+          value -= left;
+        }
+        else if ((i & 7) == 2) {
+          value -= top;
+        }
+        int delta = value - previous[i & 15];
+        previous[i & 15] = value;
+        int raw = (delta << 1) ^ (delta >> 31);
+        if (size + 5 > bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        while ((raw & ~0x7F) != 0) {
+          bytes[size++] = (byte) ((raw & 0x7F) | 0x80);
+          raw >>>= 7;
+        }
+        bytes[size++] = (byte) raw;
+      }
+      this.count += count;
+    }
+  }
+}
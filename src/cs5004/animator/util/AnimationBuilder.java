@@ -59,4 +59,30 @@ public interface AnimationBuilder<Doc> {
   AnimationBuilder<Doc> addMotion(String name,
                                   int t1, int x1, int y1, int w1, int h1, int r1, int g1, int b1,
                                   int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2);
+
+  /**
+   * Adds several transformations of the same shape to the growing document. Each transformation
+   * takes sixteen consecutive values of the array, in the order of the arguments of
+   * {@link AnimationBuilder#addMotion} after the name. The default implementation passes each one
+   * to {@link AnimationBuilder#addMotion}; a builder can override it to look the shape up only once.
+   *
+   * @param name    The name of the shape (added with {@link AnimationBuilder#declareShape})
+   * @param count   The number of transformations to add
+   * @param motions The values of the transformations, sixteen per transformation
+   * @param offset  The position in the array of the first value of the first transformation
+   * @return This {@link AnimationBuilder}
+   * @throws IllegalArgumentException when the count is negative or the array is too short
+   */
+  default AnimationBuilder<Doc> addMotions(String name, int count, int[] motions, int offset) {
+    if (count < 0 || offset < 0 || offset > motions.length - 16L * count) {
+      throw new IllegalArgumentException("The motions do not fit in the given array");
+    }
+    for (int i = offset; i < offset + 16 * count; i += 16) {
+      addMotion(name, motions[i], motions[i + 1], motions[i + 2], motions[i + 3],
+              motions[i + 4], motions[i + 5], motions[i + 6], motions[i + 7],
+              motions[i + 8], motions[i + 9], motions[i + 10], motions[i + 11],
+              motions[i + 12], motions[i + 13], motions[i + 14], motions[i + 15]);
+    }
+    return this;
+  }
 }
@@ -0,0 +1,315 @@
+package cs5004.animator.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class to follow an animation file that is still being written, like {@code tail -f}. Each
+ * poll reads only the bytes appended since the last one, up to the last complete line, into
+ * compact {@link Statements}; a statement that is cut off by the end of what has been written so
+ * far is read again from its start by the next poll. Polling may happen on another thread, so the
+ * statements are only handed to the builder when {@link #apply} is called, on the thread that owns
+ * the animation being built, and statements already applied are never read or checked again.
+ *
+ * <p>
+ * The file may only grow while it is followed. A poll that finds it shorter than what has already
+ * been read reports an error.
+ * </p>
+ *
+ * @param <Doc> The main model interface type describing animations
+ */
+public final class AnimationFollower<Doc> implements Closeable {
+  private final Path path;
+  private final AnimationBuilder<Doc> builder;
+  private final ConcurrentLinkedQueue<Statements> ready;
+  private volatile Exception failure;
+  private ScheduledExecutorService poller;
+  private long offset;
+  private long line;
+
+  /**
+   * Constructs a follower that has not read any of the file yet.
+   *
+   * @param path    the animation file to follow
+   * @param builder the builder to pass the statements of the file to
+   */
+  public AnimationFollower(Path path, AnimationBuilder<Doc> builder) {
+    this.path = Objects.requireNonNull(path, "Must have non-null path");
+    this.builder = Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    this.ready = new ConcurrentLinkedQueue<>();
+    this.failure = null;
+    this.poller = null;
+    this.offset = 0;
+    this.line = 1;
+  }
+
+  /**
+   * Reads the complete statements appended to the file since the last poll and queues them to be
+   * applied. An error is reported with the line and byte offset of the last token read, as by
+   * {@link AnimationReader#parsePath}; the statements before it are still queued, and the next
+   * poll starts again at the statement in error.
+   *
+   * @return the number of statements queued
+   * @throws IOException           when the file cannot be read
+   * @throws IllegalStateException when the new part of the file is malformed, or the file has
+   *                               shrunk
+   */
+  public synchronized int poll() throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < offset) {
+        throw new IllegalStateException("The file has shrunk below the "
+                + offset + " bytes already read");
+      }
+      long end = lastLineBoundary(channel, offset, size);
+      if (end == offset) {
+        return 0;
+      }
+      MappedTokenizer s = new MappedTokenizer(channel, offset, end, line);
+      Ending ending = new Ending(s);
+      Statements statements = new Statements();
+      int read = 0;
+      long statement = offset;
+      long statementLine = line;
+      try {
+        while (s.hasNext()) {
+          statement = s.tokenOffset();
+          statementLine = s.tokenLine();
+          ending.ranOut = false;
+          AnimationReader.readStatement(ending, statements);
+          read++;
+          if (statements.size() == AnimationReader.BLOCK) {
+            ready.add(statements);
+            statements = new Statements();
+          }
+        }
+        offset = end;
+        line = s.line();
+      } catch (IllegalStateException e) {
+        offset = statement;
+        line = statementLine;
+        if (!ending.ranOut) {
+          throw new IllegalStateException(e.getMessage() + " (" + s.position() + ")", e);
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      } finally {
+        if (statements.size() > 0) {
+          ready.add(statements);
+        }
+      }
+      return read;
+    }
+  }
+
+  /**
+   * Starts polling the file on a background thread at a fixed interval. Polling stops at the
+   * first error, which is reported by the next call to {@link #apply}.
+   *
+   * @param interval the number of milliseconds between polls
+   * @throws IllegalArgumentException when the interval is less than 1
+   * @throws IllegalStateException    when polling has already started
+   */
+  public synchronized void start(long interval) {
+    if (interval < 1) {
+      throw new IllegalArgumentException("The polling interval must be at least 1");
+    }
+    if (poller != null) {
+      throw new IllegalStateException("The file is already being followed");
+    }
+    poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "follow " + path.getFileName());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    poller.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          poll();
+        } catch (IOException | RuntimeException e) {
+          failure = e;
+          poller.shutdown();
+        }
+      }
+    }, 0, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Passes every queued statement to the builder, in file order. This must be called on the thread
+   * that owns the animation being built.
+   *
+   * @return whether any statement was passed on
+   * @throws IllegalStateException when background polling has stopped at an error, after the
+   *                               statements read before the error have been passed on
+   * @throws UncheckedIOException  when background polling has stopped because the file could not
+   *                               be read
+   */
+  public boolean apply() {
+    Exception e = failure;
+    boolean applied = false;
+    Statements statements = ready.poll();
+    while (statements != null) {
+      statements.drainTo(builder);
+      applied = true;
+      statements = ready.poll();
+    }
+    if (e != null) {
+      failure = null;
+      if (e instanceof IOException) {
+        throw new UncheckedIOException((IOException) e);
+      }
+      throw (RuntimeException) e;
+    }
+    return applied;
+  }
+
+  /**
+   * Stops polling the file. Statements already queued may still be applied.
+   */
+  @Override
+  public synchronized void close() {
+    if (poller != null) {
+      poller.shutdownNow();
+    }
+  }
+
+  /**
+   * Finds the last line boundary in a part of the file, which is just after its last newline.
+   *
+   * @param channel a channel open for reading on the file
+   * @param from    the byte offset of the start of the part
+   * @param to      the byte offset of the end of the part
+   * @return the offset just after the last newline in the part, or its start if there is none
+   * @throws IOException when the file cannot be read
+   */
+  private static long lastLineBoundary(FileChannel channel, long from, long to)
+          throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    long position = to;
+    while (position > from) {
+      int n = (int) Math.min(buffer.capacity(), position - from);
+      buffer.clear().limit(n);
+      long start = position - n;
+      int read = 0;
+      while (read < n) {
+        int r = channel.read(buffer, start + read);
+        if (r <= 0) {
+          return from;
+        }
+        read += r;
+      }
+      for (int i = n - 1; i >= 0; i--) {
+        if (buffer.get(i) == '\n') {
+          return start + i + 1;
+        }
+      }
+      position = start;
+    }
+    return from;
+  }
+
+  /**
+   * A class to pass tokens through from another tokenizer, noting when it runs out of them, so
+   * that a statement cut off by the end of what has been written can be told from a malformed one.
+   */
+  private static final class Ending implements Tokenizer {
+    private final Tokenizer s;
+    private boolean ranOut;
+
+    /**
+     * Constructs a tokenizer passing through the tokens of another.
+     *
+     * @param s the tokenizer to read from
+     */
+    private Ending(Tokenizer s) {
+      this.s = s;
+      this.ranOut = false;
+    }
+
+    /**
+     * Determines whether another token is available, noting when there is none.
+     *
+     * @return true if there is another token, false at the end of the input
+     */
+    @Override
+    public boolean hasNext() {
+      boolean next = s.hasNext();
+      ranOut |= !next;
+      return next;
+    }
+
+    /**
+     * Determines whether the next token is the given word, without consuming it.
+     *
+     * @param word the word to compare the next token with
+     * @return true if the next token is exactly the given word, false otherwise
+     */
+    @Override
+    public boolean nextIs(String word) {
+      return s.nextIs(word);
+    }
+
+    /**
+     * Consumes the next token and returns it as a string.
+     *
+     * @return the next token
+     */
+    @Override
+    public String next() {
+      return s.next();
+    }
+
+    /**
+     * Consumes the next token without making a string of it.
+     */
+    @Override
+    public void skip() {
+      s.skip();
+    }
+
+    /**
+     * Determines whether the next token is an integer.
+     *
+     * @return true if the next token is an integer, false otherwise
+     */
+    @Override
+    public boolean hasNextInt() {
+      return s.hasNextInt();
+    }
+
+    /**
+     * Consumes the next token as an integer.
+     *
+     * @return the value of the next token
+     */
+    @Override
+    public int nextInt() {
+      return s.nextInt();
+    }
+
+    /**
+     * Consumes the rest of the current line and returns it without its line terminator.
+     *
+     * @return the rest of the current line
+     */
+    @Override
+    public String nextLine() {
+      return s.nextLine();
+    }
+  }
+}
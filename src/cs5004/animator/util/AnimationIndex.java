@@ -0,0 +1,341 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An index over an animation file in the format described at {@link AnimationReader#parseFile},
+ * which lets the motions of one shape be read without reading the rest of the file. Building the
+ * index reads and checks every statement of the file, but only keeps the canvas, the shapes, and
+ * for each shape the byte offset of each of its motions and the span of ticks they cover, so it
+ * is much cheaper in time and memory than building a model of the whole animation.
+ *
+ * <p>
+ * The motions of a shape are read back at their offsets, so the file must not change while the
+ * index is in use. The position of a shape on the canvas depends on the canvas in effect when each
+ * of its motions is read, so the canvas may only be resized, not moved, once motions have been
+ * read.
+ * </p>
+ */
+public final class AnimationIndex {
+  private final Path path;
+  private int[] bounds;
+  private final Map<String, Integer> handles;
+  private String[] names;
+  private String[] types;
+  private long[][] offsets;
+  private int[] counts;
+  private int[] firstTicks;
+  private int[] lastTicks;
+  private int size;
+
+  /**
+   * Constructs an empty index over a file.
+   *
+   * @param path the file the index describes
+   */
+  private AnimationIndex(Path path) {
+    this.path = path;
+    this.bounds = null;
+    this.handles = new HashMap<>();
+    this.names = new String[16];
+    this.types = new String[16];
+    this.offsets = new long[16][];
+    this.counts = new int[16];
+    this.firstTicks = new int[16];
+    this.lastTicks = new int[16];
+    this.size = 0;
+  }
+
+  /**
+   * Builds an index over an animation file, checking every statement in it. An error in the file
+   * is reported with the line and byte offset of the last token read, as by
+   * {@link AnimationReader#parsePath}.
+   *
+   * @param path the animation file
+   * @return the index of the file
+   * @throws IOException              when the file cannot be opened or read
+   * @throws IllegalStateException    when the file is malformed, or the canvas is moved after a
+   *                                  motion has been read
+   * @throws IllegalArgumentException when two shapes have the same name
+   * @throws NoSuchElementException   when a motion names a shape that has not been declared
+   */
+  public static AnimationIndex scan(Path path) throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    AnimationIndex index = new AnimationIndex(path);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedTokenizer s = new MappedTokenizer(channel);
+      Scanner scanner = index.new Scanner();
+      try {
+        while (s.hasNext()) {
+          scanner.statement = s.tokenOffset();
+          AnimationReader.readStatement(s, scanner);
+        }
+      } catch (IllegalStateException e) {
+        throw new IllegalStateException(e.getMessage() + " (" + s.position() + ")", e);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns the canvas bounds of the animation.
+   *
+   * @return the left, top, width and height of the canvas, or null when the file sets none
+   */
+  public int[] getBounds() {
+    return bounds == null ? null : bounds.clone();
+  }
+
+  /**
+   * Returns the number of shapes in the animation.
+   *
+   * @return the number of shapes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Determines whether the animation declares a shape with the given name.
+   *
+   * @param name the name of the shape
+   * @return true if the shape is declared, false otherwise
+   */
+  public boolean contains(String name) {
+    return handles.containsKey(name);
+  }
+
+  /**
+   * Returns the name of a shape.
+   *
+   * @param handle the position of the shape in declaration order
+   * @return the name of the shape
+   */
+  public String getName(int handle) {
+    return names[check(handle)];
+  }
+
+  /**
+   * Returns the type a shape was declared with.
+   *
+   * @param handle the position of the shape in declaration order
+   * @return the type of the shape
+   */
+  public String getType(int handle) {
+    return types[check(handle)];
+  }
+
+  /**
+   * Returns the number of motions of a shape.
+   *
+   * @param handle the position of the shape in declaration order
+   * @return the number of motions of the shape
+   */
+  public int getMotionCount(int handle) {
+    return counts[check(handle)];
+  }
+
+  /**
+   * Returns the tick the first motion of a shape starts at.
+   *
+   * @param handle the position of the shape in declaration order
+   * @return the earliest start of a motion of the shape, or 0 when it has no motions
+   */
+  public int getFirstTick(int handle) {
+    return firstTicks[check(handle)];
+  }
+
+  /**
+   * Returns the tick the last motion of a shape ends at.
+   *
+   * @param handle the position of the shape in declaration order
+   * @return the latest end of a motion of the shape, or 0 when it has no motions
+   */
+  public int getLastTick(int handle) {
+    return lastTicks[check(handle)];
+  }
+
+  /**
+   * Finds the position of a shape in declaration order.
+   *
+   * @param name the name of the shape
+   * @return the position of the shape
+   * @throws NoSuchElementException when no shape has the name
+   */
+  public int handleOf(String name) {
+    Integer handle = handles.get(name);
+    if (handle == null) {
+      throw new NoSuchElementException("No such shape found under given ID.");
+    }
+    return handle;
+  }
+
+  /**
+   * Reads the motions of one shape from the file and passes them to a builder, in file order, as
+   * a single call to {@link AnimationBuilder#addMotions}. The shape must already have been declared
+   * to the builder.
+   *
+   * @param handle  the position of the shape in declaration order
+   * @param builder the builder to pass the motions to
+   * @throws IOException when the file cannot be opened or read
+   */
+  public void load(int handle, AnimationBuilder<?> builder) throws IOException {
+    int count = counts[check(handle)];
+    if (count == 0) {
+      return;
+    }
+    long[] at = offsets[handle];
+    int[] motions = new int[16 * count];
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedTokenizer s = new MappedTokenizer(channel);
+      for (int i = 0; i < count; i++) {
+        s.seek(at[i]);
+        s.skip();
+        s.skip();
+        for (int j = 0; j < 16; j++) {
+          motions[16 * i + j] = s.nextInt();
+        }
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    builder.addMotions(names[handle], count, motions, 0);
+  }
+
+  /**
+   * Checks that a handle names a shape in the index.
+   *
+   * @param handle the handle to check
+   * @return the handle
+   * @throws IndexOutOfBoundsException when there is no shape at the handle
+   */
+  private int check(int handle) {
+    if (handle < 0 || handle >= size) {
+      throw new IndexOutOfBoundsException("No shape at position " + handle);
+    }
+    return handle;
+  }
+
+  /**
+   * A class to record the statements of the file in the index as they are read.
+   */
+  private final class Scanner implements AnimationBuilder<AnimationIndex> {
+    private long statement;
+    private boolean motionsRead;
+
+    /**
+     * Returns the index being built.
+     *
+     * @return the index
+     */
+    @Override
+    public AnimationIndex build() {
+      return AnimationIndex.this;
+    }
+
+    /**
+     * Records the canvas bounds.
+     *
+     * @param x      The leftmost x value
+     * @param y      The topmost y value
+     * @param width  The width of the bounding box
+     * @param height The height of the bounding box
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalStateException when the canvas is moved after a motion has been read
+     */
+    @Override
+    public AnimationBuilder<AnimationIndex> setBounds(int x, int y, int width, int height) {
+      if (motionsRead && (bounds == null || x != bounds[0] || y != bounds[1])) {
+        throw new IllegalStateException("The canvas cannot be moved after a motion");
+      }
+      bounds = new int[]{x, y, width, height};
+      return this;
+    }
+
+    /**
+     * Records a shape.
+     *
+     * @param name The unique name of the shape to be added
+     * @param type The type of shape to be added
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when a shape with the name already exists
+     */
+    @Override
+    public AnimationBuilder<AnimationIndex> declareShape(String name, String type) {
+      if (handles.containsKey(name)) {
+        throw new IllegalArgumentException("ID must be unique!");
+      }
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+        types = Arrays.copyOf(types, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2);
+        counts = Arrays.copyOf(counts, size * 2);
+        firstTicks = Arrays.copyOf(firstTicks, size * 2);
+        lastTicks = Arrays.copyOf(lastTicks, size * 2);
+      }
+      handles.put(name, size);
+      names[size] = name;
+      types[size] = type;
+      offsets[size] = new long[4];
+      size++;
+      return this;
+    }
+
+    /**
+     * Records the offset and the span of ticks of a motion.
+     *
+     * @param name The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param t1   The start time of this transformation
+     * @param x1   The initial x-position of the shape
+     * @param y1   The initial y-position of the shape
+     * @param w1   The initial width of the shape
+     * @param h1   The initial height of the shape
+     * @param r1   The initial red color-value of the shape
+     * @param g1   The initial green color-value of the shape
+     * @param b1   The initial blue color-value of the shape
+     * @param t2   The end time of this transformation
+     * @param x2   The final x-position of the shape
+     * @param y2   The final y-position of the shape
+     * @param w2   The final width of the shape
+     * @param h2   The final height of the shape
+     * @param r2   The final red color-value of the shape
+     * @param g2   The final green color-value of the shape
+     * @param b2   The final blue color-value of the shape
+     * @return This {@link AnimationBuilder}
+     * @throws NoSuchElementException when no shape has the name
+     */
+    @Override
+    public AnimationBuilder<AnimationIndex> addMotion(String name,
+                                                      int t1, int x1, int y1, int w1,
+                                                      int h1, int r1, int g1, int b1,
+                                                      int t2, int x2, int y2, int w2,
+                                                      int h2, int r2, int g2, int b2) {
+      int handle = handleOf(name);
+      int count = counts[handle];
+      if (count == offsets[handle].length) {
+        offsets[handle] = Arrays.copyOf(offsets[handle], count * 2);
+      }
+      offsets[handle][count] = statement;
+      if (count == 0 || t1 < firstTicks[handle]) {
+        firstTicks[handle] = t1;
+      }
+      if (count == 0 || t2 > lastTicks[handle]) {
+        lastTicks[handle] = t2;
+      }
+      counts[handle] = count + 1;
+      motionsRead = true;
+      return this;
+    }
+  }
+}
@@ -1,13 +1,22 @@
 package cs5004.animator.util;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Scanner;
-import java.util.regex.Pattern;
 
 /**
  * A helper to read animation data and construct an animation from it.
  */
 public class AnimationReader {
+  static final int BLOCK = 4096;
+
   /**
    * A factory for producing new animations, given a source of shapes and a
    * builder for constructing animations.
@@ -34,29 +43,256 @@ public class AnimationReader {
   public static <Doc> Doc parseFile(Readable readable, AnimationBuilder<Doc> builder) {
     Objects.requireNonNull(readable, "Must have non-null readable source");
     Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
-    Scanner s = new Scanner(readable);
-    // Split at whitespace, and ignore # comment lines
-    s.useDelimiter(Pattern.compile("(\\p{Space}+|#.*)+"));
+    return parse(new AnimationTokenizer(readable), builder);
+  }
+
+  /**
+   * A factory for producing new animations from a file, in the format described at
+   * {@link #parseFile}. The file is memory-mapped and its bytes are scanned directly, without
+   * decoding them into characters, which suits files of several gigabytes. An error in the file is
+   * reported with the line and byte offset of the last token read. A gzip file, recognized by its
+   * first bytes, is instead decompressed on another thread while it is read, and an error in it is
+   * reported without a position.
+   *
+   * @param path    The file containing the animation
+   * @param builder A builder for helping to construct a new animation
+   * @param <Doc>   The main model interface type describing animations
+   * @return the animation built from the file
+   * @throws IOException when the file cannot be opened or read
+   */
+  public static <Doc> Doc parsePath(Path path, AnimationBuilder<Doc> builder)
+          throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    if (isCompressed(path)) {
+      return parseCompressed(path, builder);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      readAll(new MappedTokenizer(channel), builder);
+      return builder.build();
+    }
+  }
+
+  /**
+   * A factory for producing new animations from a file, in the same way as {@link #parsePath},
+   * but reading the file on all cores. The file is split at line boundaries into chunks, which are
+   * read in parallel into compact records of their statements, and the records are then replayed
+   * into the builder one chunk at a time, in the order they appear in the file. The builder sees
+   * exactly the calls it would see from {@link #parsePath}, and an error in the file is reported in
+   * the same way. A gzip file cannot be split, so it is read as by {@link #parsePath}.
+   *
+   * @param path    The file containing the animation
+   * @param builder A builder for helping to construct a new animation
+   * @param <Doc>   The main model interface type describing animations
+   * @return the animation built from the file
+   * @throws IOException when the file cannot be opened or read
+   */
+  public static <Doc> Doc parsePathParallel(Path path, AnimationBuilder<Doc> builder)
+          throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    if (isCompressed(path)) {
+      return parseCompressed(path, builder);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      new ParallelReader(channel).read(builder);
+      return builder.build();
+    }
+  }
+
+  /**
+   * Determines whether a file is compressed with gzip, by its first two bytes. Such a file is read
+   * by {@link #parsePath}, {@link #parsePathParallel} and {@link #countMotions} as if it had been
+   * decompressed first.
+   *
+   * @param path the file to examine
+   * @return true if the file is compressed, false otherwise
+   * @throws IOException when the file cannot be opened or read
+   */
+  public static boolean isCompressed(Path path) throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    return InflatingStream.isGzip(path);
+  }
+
+  /**
+   * Reads a gzip file into a builder, decompressing it on another thread while it is read.
+   *
+   * @param path    The compressed file containing the animation
+   * @param builder A builder for helping to construct a new animation
+   * @param <Doc>   The main model interface type describing animations
+   * @return the animation built from the file
+   * @throws IOException when the file cannot be opened, read or decompressed
+   */
+  private static <Doc> Doc parseCompressed(Path path, AnimationBuilder<Doc> builder)
+          throws IOException {
+    try (InflatingStream in = new InflatingStream(path)) {
+      return parse(new AnimationTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8)),
+              builder);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Counts the motions of each shape in a file, in the format described at {@link #parseFile},
+   * without checking their values or building anything from them. This lets a builder that
+   * streams its output know when it has seen the last motion of a shape. The counting stops at
+   * the first statement it does not recognize, which parsing the file will report as an error.
+   *
+   * @param path The file containing the animation
+   * @return the number of motions of each shape that has any
+   * @throws IOException when the file cannot be opened or read
+   */
+  public static Map<String, Integer> countMotions(Path path) throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    if (isCompressed(path)) {
+      try (InflatingStream in = new InflatingStream(path)) {
+        return countMotions(new AnimationTokenizer(new InputStreamReader(in,
+                StandardCharsets.UTF_8)));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return countMotions(new MappedTokenizer(channel));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Counts the motions of each shape in the statements left in a tokenizer, as described at
+   * {@link #countMotions(Path)}.
+   *
+   * @param s the tokenizer over the file
+   * @return the number of motions of each shape that has any
+   */
+  private static Map<String, Integer> countMotions(Tokenizer s) {
+    Map<String, Integer> counts = new HashMap<>();
     while (s.hasNext()) {
-      String word = s.next();
-      switch (word) {
-        case "canvas":
-          readCanvas(s, builder);
+      if (s.nextIs("motion")) {
+        s.skip();
+        if (!s.hasNext()) {
           break;
-        case "shape":
-          readShape(s, builder);
-          break;
-        case "motion":
-          readMotion(s, builder);
-          break;
-        default:
-          throw new IllegalStateException("Unexpected keyword: " + word + s.nextLine());
+        }
+        String name = s.next();
+        Integer count = counts.get(name);
+        counts.put(name, count == null ? 1 : count + 1);
+        skip(s, 16);
+      } else if (s.nextIs("shape")) {
+        s.skip();
+        skip(s, 2);
+      } else if (s.nextIs("canvas")) {
+        s.skip();
+        skip(s, 4);
+      } else {
+        break;
       }
     }
+    return counts;
+  }
+
+  private static void skip(Tokenizer s, int count) {
+    for (int i = 0; i < count && s.hasNext(); i++) {
+      s.skip();
+    }
+  }
+
+  /**
+   * Reads every statement left in a mapped file into a builder, adding the position of the
+   * statement at fault to the message of any error: the last token read for a malformed
+   * statement, or the statement the builder rejected.
+   *
+   * @param s       the tokenizer over the file
+   * @param builder the builder to pass each statement to
+   * @param <Doc>   The main model interface type describing animations
+   * @throws IOException when the file cannot be read
+   */
+  static <Doc> void readAll(MappedTokenizer s, AnimationBuilder<Doc> builder)
+          throws IOException {
+    try {
+      readStatements(s, s, builder);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static <Doc> Doc parse(Tokenizer s, AnimationBuilder<Doc> builder) {
+    readStatements(s, null, builder);
     return builder.build();
   }
 
-  private static <Doc> void readCanvas(Scanner s, AnimationBuilder<Doc> builder) {
+  /**
+   * Reads every statement left in the input into a builder. The statements are gathered into
+   * blocks, so that each run of motions of the same shape reaches the builder as one call to
+   * {@link AnimationBuilder#addMotions}. The statements read before a malformed one are passed on
+   * before its error is thrown, so the builder sees the same statements as when they are passed
+   * on one at a time; should the builder reject one of them, that error is added to the one thrown
+   * as suppressed rather than replacing it.
+   *
+   * @param s       the tokenizer over the input
+   * @param mapped  the same tokenizer when it reads a mapped file, to give the place of each
+   *                statement in errors, or null
+   * @param builder the builder to pass each statement to
+   * @param <Doc>   The main model interface type describing animations
+   * @throws IllegalStateException when a statement is malformed or rejected by the builder
+   */
+  private static <Doc> void readStatements(Tokenizer s, MappedTokenizer mapped,
+                                           AnimationBuilder<Doc> builder) {
+    Statements statements = new Statements();
+    while (true) {
+      try {
+        if (!s.hasNext()) {
+          break;
+        }
+        if (mapped != null) {
+          statements.at(mapped.tokenLine(), mapped.tokenOffset());
+        }
+        readStatement(s, statements);
+      } catch (RuntimeException e) {
+        RuntimeException error = e;
+        if (mapped != null && e instanceof IllegalStateException) {
+          error = new IllegalStateException(e.getMessage() + " (" + mapped.position() + ")", e);
+        }
+        try {
+          statements.drainTo(builder);
+        } catch (RuntimeException rejected) {
+          error.addSuppressed(rejected);
+        }
+        throw error;
+      }
+      if (statements.size() == BLOCK) {
+        statements.drainTo(builder);
+      }
+    }
+    statements.drainTo(builder);
+  }
+
+  /**
+   * Reads one canvas, shape or motion statement into a builder.
+   *
+   * @param s       the tokenizer positioned at the keyword of the statement
+   * @param builder the builder to pass the statement to
+   * @param <Doc>   The main model interface type describing animations
+   * @throws IllegalStateException when the statement is malformed
+   */
+  static <Doc> void readStatement(Tokenizer s, AnimationBuilder<Doc> builder) {
+    if (s.nextIs("motion")) {
+      s.skip();
+      readMotion(s, builder);
+    } else if (s.nextIs("shape")) {
+      s.skip();
+      readShape(s, builder);
+    } else if (s.nextIs("canvas")) {
+      s.skip();
+      readCanvas(s, builder);
+    } else {
+      String word = s.next();
+      throw new IllegalStateException("Unexpected keyword: " + word + s.nextLine());
+    }
+  }
+
+  private static <Doc> void readCanvas(Tokenizer s, AnimationBuilder<Doc> builder) {
     int[] vals = new int[4];
     String[] fieldNames = {"left", "top", "width", "height"};
     for (int i = 0; i < 4; i++) {
@@ -65,7 +301,7 @@ public class AnimationReader {
     builder.setBounds(vals[0], vals[1], vals[2], vals[3]);
   }
 
-  private static <Doc> void readShape(Scanner s, AnimationBuilder<Doc> builder) {
+  private static <Doc> void readShape(Tokenizer s, AnimationBuilder<Doc> builder) {
     String name;
     String type;
     if (s.hasNext()) {
@@ -81,17 +317,18 @@ public class AnimationReader {
     builder.declareShape(name, type);
   }
 
-  private static <Doc> void readMotion(Scanner s, AnimationBuilder<Doc> builder) {
-    String[] fieldNames = new String[]{
-        "initial time",
-        "initial x-coordinate", "initial y-coordinate",
-        "initial width", "initial height",
-        "initial red value", "initial green value", "initial blue value",
-        "final time",
-        "final x-coordinate", "final y-coordinate",
-        "final width", "final height",
-        "final red value", "final green value", "final blue value",
-    };
+  private static final String[] MOTION_FIELDS = new String[]{
+      "initial time",
+      "initial x-coordinate", "initial y-coordinate",
+      "initial width", "initial height",
+      "initial red value", "initial green value", "initial blue value",
+      "final time",
+      "final x-coordinate", "final y-coordinate",
+      "final width", "final height",
+      "final red value", "final green value", "final blue value",
+  };
+
+  private static <Doc> void readMotion(Tokenizer s, AnimationBuilder<Doc> builder) {
     int[] vals = new int[16];
     String name;
     if (s.hasNext()) {
@@ -100,14 +337,14 @@ public class AnimationReader {
       throw new IllegalStateException("Motion: Expected a shape name, but no more input available");
     }
     for (int i = 0; i < 16; i++) {
-      vals[i] = getInt(s, "Motion", fieldNames[i]);
+      vals[i] = getInt(s, "Motion", MOTION_FIELDS[i]);
     }
     builder.addMotion(name,
             vals[0], vals[1], vals[2 ], vals[3 ], vals[4 ], vals[5 ], vals[6 ], vals[7 ],
             vals[8], vals[9], vals[10], vals[11], vals[12], vals[13], vals[14], vals[15]);
   }
 
-  private static int getInt(Scanner s, String label, String fieldName) {
+  private static int getInt(Tokenizer s, String label, String fieldName) {
     if (s.hasNextInt()) {
       return s.nextInt();
     } else if (s.hasNext()) {
@@ -0,0 +1,281 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A tokenizer over animation input that splits at whitespace and skips # comments, in the same
+ * way as a {@link java.util.Scanner} using the delimiter {@code (\p{Space}+|#.*)+}, but without
+ * regular expressions. Input is read in blocks into a character buffer and every token is examined
+ * where it lies in that buffer, so integers are parsed without creating a string, and a word only
+ * becomes a string when it is asked for as one.
+ */
+final class AnimationTokenizer implements Tokenizer {
+  private final Readable source;
+  private char[] buf;
+  private int pos;
+  private int limit;
+  private boolean eof;
+  private int start;
+  private int end;
+  private boolean ready;
+  private boolean scanning;
+  private String lastWord;
+
+  /**
+   * Constructs a tokenizer over the given source.
+   *
+   * @param source the source of the animation input
+   */
+  AnimationTokenizer(Readable source) {
+    this.source = source;
+    this.buf = new char[8192];
+    this.pos = 0;
+    this.limit = 0;
+    this.eof = false;
+    this.ready = false;
+    this.scanning = false;
+    this.lastWord = "";
+  }
+
+  /**
+   * Determines whether another token is available, skipping any whitespace and comments in front
+   * of it.
+   *
+   * @return true if there is another token, false at the end of the input
+   */
+  @Override
+  public boolean hasNext() {
+    if (ready) {
+      return true;
+    }
+    while (true) {
+      if (pos == limit && !fill()) {
+        return false;
+      }
+      char c = buf[pos];
+      if (c == '#') {
+        skipLine(false);
+      } else if (isSpace(c)) {
+        pos++;
+      } else {
+        break;
+      }
+    }
+    start = pos;
+    scanning = true;
+    while (true) {
+      if (pos == limit && !fill()) {
+        break;
+      }
+      char c = buf[pos];
+      if (c == '#' || isSpace(c)) {
+        break;
+      }
+      pos++;
+    }
+    scanning = false;
+    end = pos;
+    ready = true;
+    return true;
+  }
+
+  /**
+   * Determines whether the next token is the given word, without consuming it.
+   *
+   * @param word the word to compare the next token with
+   * @return true if the next token is exactly the given word, false otherwise
+   */
+  @Override
+  public boolean nextIs(String word) {
+    if (!hasNext() || end - start != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      if (buf[start + i] != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Consumes the next token and returns it as a string. A token equal to the previous one returned
+   * by this method is returned as the same string, since the same shape name tends to appear on
+   * many lines in a row.
+   *
+   * @return the next token
+   * @throws IllegalStateException when there is no more input
+   */
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new IllegalStateException("No more input available");
+    }
+    if (!nextIs(lastWord)) {
+      lastWord = new String(buf, start, end - start);
+    }
+    ready = false;
+    return lastWord;
+  }
+
+  /**
+   * Consumes the next token without making a string of it, so that a keyword between two names
+   * does not stop the second name from being returned as the same string as the first.
+   *
+   * @throws IllegalStateException when there is no more input
+   */
+  @Override
+  public void skip() {
+    if (!hasNext()) {
+      throw new IllegalStateException("No more input available");
+    }
+    ready = false;
+  }
+
+  /**
+   * Determines whether the next token is an integer: an optional sign followed by decimal digits,
+   * whose value fits in an int.
+   *
+   * @return true if the next token is an integer, false otherwise
+   */
+  @Override
+  public boolean hasNextInt() {
+    if (!hasNext()) {
+      return false;
+    }
+    int i = start;
+    if (buf[i] == '-' || buf[i] == '+') {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      char c = buf[i];
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      value = value * 10 + (c - '0');
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        return false;
+      }
+    }
+    return buf[start] == '-' || value <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Consumes the next token as an integer, parsing it where it lies in the buffer.
+   *
+   * @return the value of the next token
+   * @throws IllegalStateException when the next token is not an integer
+   */
+  @Override
+  public int nextInt() {
+    if (!hasNextInt()) {
+      throw new IllegalStateException("Expected an integer");
+    }
+    ready = false;
+    int i = start;
+    boolean negative = buf[i] == '-';
+    if (negative || buf[i] == '+') {
+      i++;
+    }
+    int value = 0;
+    for (; i < end; i++) {
+      value = value * 10 - (buf[i] - '0');
+    }
+    return negative ? value : -value;
+  }
+
+  /**
+   * Consumes the rest of the current line, including any comment, and returns it without its line
+   * terminator.
+   *
+   * @return the rest of the current line
+   */
+  @Override
+  public String nextLine() {
+    if (ready) {
+      pos = start;
+      ready = false;
+    }
+    return skipLine(true);
+  }
+
+  /**
+   * Skips to the end of the current line, leaving the line terminator to be skipped as whitespace.
+   *
+   * @param keep whether to return the skipped characters
+   * @return the skipped characters, or null when they are not kept
+   */
+  private String skipLine(boolean keep) {
+    StringBuilder line = keep ? new StringBuilder() : null;
+    while (true) {
+      if (pos == limit && !fill()) {
+        break;
+      }
+      char c = buf[pos];
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        break;
+      }
+      if (keep) {
+        line.append(c);
+      }
+      pos++;
+    }
+    return keep ? line.toString() : null;
+  }
+
+  /**
+   * Reads more input into the buffer, keeping the part of a token that has been scanned so far.
+   *
+   * @return true if more input was read, false at the end of the input
+   */
+  private boolean fill() {
+    if (eof) {
+      return false;
+    }
+    int keep = scanning ? start : pos;
+    if (keep > 0) {
+      System.arraycopy(buf, keep, buf, 0, limit - keep);
+      limit -= keep;
+      pos -= keep;
+      start -= keep;
+      end -= keep;
+    }
+    if (limit == buf.length) {
+      buf = Arrays.copyOf(buf, buf.length * 2);
+    }
+    int n;
+    try {
+      if (source instanceof Reader) {
+        n = ((Reader) source).read(buf, limit, buf.length - limit);
+      } else {
+        n = source.read(CharBuffer.wrap(buf, limit, buf.length - limit));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (n < 0) {
+      eof = true;
+      return false;
+    }
+    limit += n;
+    return true;
+  }
+
+  /**
+   * Determines whether a character is POSIX whitespace, which is what {@code \p{Space}} matches.
+   *
+   * @param c the character to check
+   * @return true if the character is whitespace, false otherwise
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
@@ -0,0 +1,272 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A stream that gzip compresses what is written to it on a thread of its own. What is written is
+ * gathered into blocks of a fixed size, which are handed over through a short queue to the thread
+ * that compresses them into the underlying stream, so producing the next blocks overlaps with
+ * compressing the current one, and no more than a few blocks are held at once however much is
+ * written. This is the counterpart of {@link InflatingStream}.
+ *
+ * <p>
+ * Closing the stream writes out the last block, waits for it to be compressed and ends the gzip
+ * member, but leaves the underlying stream open, so that it can still be committed or written to.
+ * When writing fails part way, {@link #abort} stops the compressing thread instead and waits for
+ * it, so that nothing writes to the underlying stream once it returns.
+ * </p>
+ */
+public final class DeflatingStream extends OutputStream {
+  private static final int BLOCK = 1 << 18;
+  private static final int AHEAD = 4;
+  private static final int BUFFER = 1 << 16;
+  private static final long POLL = 100;
+  private static final byte[] END = new byte[0];
+
+  private final BlockingQueue<byte[]> blocks;
+  private final Thread deflater;
+  private volatile Throwable error;
+  private byte[] block;
+  private int pos;
+  private boolean closed;
+
+  /**
+   * Constructs a stream that compresses into the given stream and starts its compressing thread.
+   *
+   * @param out the stream to write the compressed bytes to
+   * @throws IOException when the gzip header cannot be written
+   */
+  public DeflatingStream(OutputStream out) throws IOException {
+    final GZIPOutputStream gzip = new GZIPOutputStream(new Unclosed(out), BUFFER);
+    this.blocks = new ArrayBlockingQueue<>(AHEAD);
+    this.error = null;
+    this.block = new byte[BLOCK];
+    this.pos = 0;
+    this.closed = false;
+    this.deflater = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          while (true) {
+            byte[] next = blocks.take();
+            if (next == END) {
+              break;
+            }
+            gzip.write(next);
+          }
+          gzip.close();
+        } catch (InterruptedException e) {
+          return;
+        } catch (Throwable e) {
+          error = e;
+        }
+      }
+    }, "deflate");
+    this.deflater.setDaemon(true);
+    this.deflater.start();
+  }
+
+  /**
+   * Writes one byte.
+   *
+   * @param b the byte, in the low eight bits
+   * @throws IOException when the stream is closed or compressing has failed
+   */
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (pos == BLOCK) {
+      handOver();
+    }
+    block[pos++] = (byte) b;
+  }
+
+  /**
+   * Writes bytes from an array.
+   *
+   * @param b   the array to write from
+   * @param off the position in the array of the first byte to write
+   * @param len the number of bytes to write
+   * @throws IOException when the stream is closed or compressing has failed
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (pos == BLOCK) {
+        handOver();
+      }
+      int n = Math.min(len, BLOCK - pos);
+      System.arraycopy(b, off, block, pos, n);
+      pos += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Hands over the last block and waits until everything written has been compressed into the
+   * underlying stream, which is left open.
+   *
+   * @throws IOException when compressing or writing the compressed bytes failed
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    if (pos > 0) {
+      handOver();
+    }
+    closed = true;
+    block = null;
+    put(END);
+    try {
+      deflater.join();
+    } catch (InterruptedException e) {
+      deflater.interrupt();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing", e);
+    }
+    if (error != null) {
+      throw failure();
+    }
+  }
+
+  /**
+   * Stops compressing without ending the gzip member, and waits until the compressing thread has
+   * stopped, so that the underlying stream is no longer written to. Does nothing once the thread
+   * has stopped, as it has after the stream has been closed.
+   */
+  public void abort() {
+    closed = true;
+    block = null;
+    if (!deflater.isAlive()) {
+      return;
+    }
+    deflater.interrupt();
+    boolean interrupted = false;
+    while (deflater.isAlive()) {
+      try {
+        deflater.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Hands the current block to the compressing thread and starts a new one.
+   *
+   * @throws IOException when compressing has failed
+   */
+  private void handOver() throws IOException {
+    if (error != null) {
+      throw failure();
+    }
+    put(pos == BLOCK ? block : Arrays.copyOf(block, pos));
+    block = new byte[BLOCK];
+    pos = 0;
+  }
+
+  /**
+   * Returns an exception that reports why compressing stopped, new each time so that it can be
+   * thrown by more than one call.
+   *
+   * @return the exception, whose cause is what stopped the compressing thread, if known
+   */
+  private IOException failure() {
+    return new IOException("Could not compress", error);
+  }
+
+  /**
+   * Checks that the stream can still be written to.
+   *
+   * @throws IOException when the stream has been closed
+   */
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("The stream is closed");
+    }
+  }
+
+  /**
+   * Waits for room in the queue for a block, for as long as the compressing thread is running.
+   *
+   * @param next the block to queue
+   * @throws IOException when the compressing thread has stopped, or interrupted while waiting
+   */
+  private void put(byte[] next) throws IOException {
+    try {
+      while (!blocks.offer(next, POLL, TimeUnit.MILLISECONDS)) {
+        if (!deflater.isAlive()) {
+          throw failure();
+        }
+      }
+    } catch (InterruptedException e) {
+      deflater.interrupt();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing", e);
+    }
+  }
+
+  /**
+   * A stream that passes writes on to another stream but only flushes it when closed, so that
+   * ending the gzip member leaves the stream it was written to open.
+   */
+  private static final class Unclosed extends OutputStream {
+    private final OutputStream out;
+
+    /**
+     * Constructs a stream that writes to the given one.
+     *
+     * @param out the stream to write to
+     */
+    private Unclosed(OutputStream out) {
+      this.out = out;
+    }
+
+    /**
+     * Writes one byte.
+     *
+     * @param b the byte, in the low eight bits
+     * @throws IOException when it cannot be written
+     */
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+    }
+
+    /**
+     * Writes bytes from an array.
+     *
+     * @param b   the array to write from
+     * @param off the position in the array of the first byte to write
+     * @param len the number of bytes to write
+     * @throws IOException when they cannot be written
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    /**
+     * Flushes the underlying stream without closing it.
+     *
+     * @throws IOException when it cannot be flushed
+     */
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
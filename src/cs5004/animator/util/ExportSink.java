@@ -0,0 +1,237 @@
+package cs5004.animator.util;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A stream that exports a view to a file or to the standard output through a channel, gathering
+ * what is written into a large direct buffer so that the channel sees few, large writes.
+ *
+ * <p>
+ * A file is written under a hidden temporary name in the same directory, created with the usual
+ * permissions of a new file, and only renamed onto its own name by {@link #commit}, so a file is
+ * never seen half written, and an export that fails or is closed without being committed leaves
+ * no file behind and any file it would have replaced untouched. Unless the sink is opened to
+ * overwrite, exporting to a file that already exists is an error. The standard output is never
+ * closed, only flushed, so that it can still be written to afterwards.
+ * </p>
+ */
+public final class ExportSink extends OutputStream {
+  /**
+   * The name that stands for the standard output.
+   */
+  public static final String STDOUT = "-";
+
+  private static final int BUFFER = 1 << 20;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final Path temp;
+  private final Path target;
+  private final boolean overwrite;
+  private boolean committed;
+  private boolean closed;
+
+  /**
+   * Constructs a sink that writes to a channel.
+   *
+   * @param channel   the channel to write to
+   * @param temp      the file the channel writes, or null for the standard output
+   * @param target    the file to rename it onto when committed, or null for the standard output
+   * @param overwrite whether the target may be replaced
+   */
+  private ExportSink(WritableByteChannel channel, Path temp, Path target, boolean overwrite) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(BUFFER);
+    this.temp = temp;
+    this.target = target;
+    this.overwrite = overwrite;
+    this.committed = false;
+    this.closed = false;
+  }
+
+  /**
+   * Opens a sink for the file with the given name, or for the standard output when the name is
+   * {@link #STDOUT}.
+   *
+   * @param name      the name of the file to export to, or {@link #STDOUT}
+   * @param overwrite whether a file that already exists may be replaced
+   * @return the sink, which must be committed for the file to appear
+   * @throws IOException              when the temporary file cannot be created
+   * @throws IllegalArgumentException when the name is empty, or the file exists and may not be
+   *                                  replaced
+   */
+  public static ExportSink open(String name, boolean overwrite) throws IOException {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("Cannot have empty string");
+    }
+    if (name.equals(STDOUT)) {
+      return new ExportSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+              null, null, false);
+    }
+    Path target = Path.of(name).toAbsolutePath();
+    if (!overwrite && Files.exists(target)) {
+      throw new IllegalArgumentException("File with given name exists");
+    }
+    while (true) {
+      Path temp = target.resolveSibling("." + target.getFileName() + "."
+              + Long.toHexString(System.nanoTime()) + ".part");
+      try {
+        return new ExportSink(FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE_NEW), temp, target, overwrite);
+      } catch (FileAlreadyExistsException e) {
+        continue;
+      }
+    }
+  }
+
+  /**
+   * Determines whether this sink writes to the standard output rather than to a file.
+   *
+   * @return true for the standard output, false for a file
+   */
+  public boolean isStdout() {
+    return target == null;
+  }
+
+  /**
+   * Writes one byte.
+   *
+   * @param b the byte, in the low eight bits
+   * @throws IOException when the buffer cannot be written out
+   */
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (!buffer.hasRemaining()) {
+      drain();
+    }
+    buffer.put((byte) b);
+  }
+
+  /**
+   * Writes bytes from an array. Runs as large as the buffer go straight to the channel.
+   *
+   * @param b   the array to write from
+   * @param off the position in the array of the first byte to write
+   * @param len the number of bytes to write
+   * @throws IOException when the bytes cannot be written
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (len >= BUFFER) {
+      drain();
+      ByteBuffer run = ByteBuffer.wrap(b, off, len);
+      while (run.hasRemaining()) {
+        channel.write(run);
+      }
+      return;
+    }
+    while (len > 0) {
+      if (!buffer.hasRemaining()) {
+        drain();
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.put(b, off, n);
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Writes out everything buffered so far.
+   *
+   * @throws IOException when the buffer cannot be written out
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+  }
+
+  /**
+   * Writes out everything buffered and, for a file, closes it and renames it onto its own name,
+   * replacing any file there if the sink was opened to overwrite.
+   *
+   * @throws IOException when the file cannot be written or renamed, including when a file of the
+   *                     same name has appeared since the sink was opened and may not be replaced
+   */
+  public void commit() throws IOException {
+    drain();
+    if (target != null) {
+      channel.close();
+      closed = true;
+      if (overwrite) {
+        try {
+          Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } else {
+        Files.move(temp, target);
+      }
+    }
+    committed = true;
+  }
+
+  /**
+   * Closes the sink. For a file that has not been committed, the temporary file is deleted; for
+   * the standard output, what is buffered is written out.
+   *
+   * @throws IOException when the temporary file cannot be deleted or the buffer written out
+   */
+  @Override
+  public void close() throws IOException {
+    if (target == null) {
+      if (!closed) {
+        drain();
+        closed = true;
+      }
+      return;
+    }
+    if (!closed) {
+      closed = true;
+      channel.close();
+    }
+    if (!committed) {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Writes the buffer out to the channel and empties it.
+   *
+   * @throws IOException when the buffer cannot be written out
+   */
+  private void drain() throws IOException {
+    ensureOpen();
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Checks that the sink can still be written to.
+   *
+   * @throws IOException when the sink has been closed or committed
+   */
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("The sink is closed");
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A stream of the decompressed bytes of a gzip file, decompressed on a thread of its own. The
+ * thread fills blocks of a fixed size and hands them over through a short queue, so decompressing
+ * the next blocks overlaps with reading the current one, and no more than a few blocks are held
+ * at once however large the file is. A file of several gzip members is read as the concatenation
+ * of their contents.
+ */
+final class InflatingStream extends InputStream {
+  private static final int BLOCK = 1 << 18;
+  private static final int AHEAD = 4;
+  private static final int BUFFER = 1 << 16;
+  private static final byte[] END = new byte[0];
+
+  private final BlockingQueue<byte[]> blocks;
+  private final Thread inflater;
+  private volatile IOException error;
+  private byte[] block;
+  private int pos;
+  private int limit;
+
+  /**
+   * Constructs a stream over a gzip file and starts decompressing it.
+   *
+   * @param path the compressed file
+   * @throws IOException when the file cannot be opened or does not start with a gzip header
+   */
+  InflatingStream(Path path) throws IOException {
+    final InputStream in = new GZIPInputStream(Files.newInputStream(path), BUFFER);
+    this.blocks = new ArrayBlockingQueue<>(AHEAD);
+    this.error = null;
+    this.block = END;
+    this.pos = 0;
+    this.limit = 0;
+    this.inflater = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        boolean interrupted = false;
+        try (InputStream source = in) {
+          while (true) {
+            byte[] next = new byte[BLOCK];
+            int n = source.readNBytes(next, 0, BLOCK);
+            if (n > 0) {
+              blocks.put(n == BLOCK ? next : Arrays.copyOf(next, n));
+            }
+            if (n < BLOCK) {
+              break;
+            }
+          }
+        } catch (IOException e) {
+          error = e;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (Throwable e) {
+          error = new IOException("Could not decompress the file", e);
+        } finally {
+          if (!interrupted) {
+            try {
+              blocks.put(END);
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+        }
+      }
+    }, "inflate " + path.getFileName());
+    this.inflater.setDaemon(true);
+    this.inflater.start();
+  }
+
+  /**
+   * Determines whether a file starts with the two bytes that begin every gzip file.
+   *
+   * @param path the file to examine
+   * @return true if the file looks like gzip, false otherwise
+   * @throws IOException when the file cannot be opened or read
+   */
+  static boolean isGzip(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return in.read() == 0x1f && in.read() == 0x8b;
+    }
+  }
+
+  /**
+   * Reads the next decompressed byte.
+   *
+   * @return the byte, or -1 at the end of the file
+   * @throws IOException when the file cannot be decompressed
+   */
+  @Override
+  public int read() throws IOException {
+    if (pos == limit && !take()) {
+      return -1;
+    }
+    return block[pos++] & 0xff;
+  }
+
+  /**
+   * Reads decompressed bytes into an array, from the current block only.
+   *
+   * @param b   the array to read into
+   * @param off the position in the array of the first byte to read
+   * @param len the most bytes to read
+   * @return the number of bytes read, or -1 at the end of the file
+   * @throws IOException when the file cannot be decompressed
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (pos == limit && !take()) {
+      return -1;
+    }
+    int n = Math.min(len, limit - pos);
+    System.arraycopy(block, pos, b, off, n);
+    pos += n;
+    return n;
+  }
+
+  /**
+   * Stops decompressing and drops any blocks not yet read.
+   */
+  @Override
+  public void close() {
+    inflater.interrupt();
+    blocks.clear();
+    block = null;
+    pos = 0;
+    limit = 0;
+  }
+
+  /**
+   * Waits for the next block from the decompressing thread.
+   *
+   * @return true if there was another block, false at the end of the file
+   * @throws IOException when the file could not be decompressed
+   */
+  private boolean take() throws IOException {
+    if (block == null) {
+      return false;
+    }
+    byte[] next;
+    try {
+      next = blocks.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decompressing", e);
+    }
+    if (next == END) {
+      block = null;
+      if (error != null) {
+        throw error;
+      }
+      return false;
+    }
+    block = next;
+    pos = 0;
+    limit = next.length;
+    return true;
+  }
+}
@@ -0,0 +1,374 @@
+package cs5004.animator.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A tokenizer that scans the bytes of a memory-mapped file directly, without decoding them into
+ * characters first. Whitespace, comments, keywords and integers are all ASCII, so they are
+ * recognized byte by byte where they lie in the mapping; only shape names and types are decoded,
+ * as UTF-8. Files larger than one mapping are read through a window that slides forward over the
+ * file, so a file of any size can be parsed. The tokenizer keeps the line and byte offset of the
+ * last token it found, to say where in the file an error is.
+ */
+final class MappedTokenizer implements Tokenizer {
+  private static final long WINDOW = 1L << 28;
+
+  private final FileChannel channel;
+  private final long size;
+  private MappedByteBuffer map;
+  private long base;
+  private int limit;
+  private int pos;
+  private int start;
+  private int end;
+  private boolean ready;
+  private boolean scanning;
+  private long line;
+  private long tokenLine;
+  private long tokenOffset;
+  private byte[] lastBytes;
+  private String lastWord;
+
+  /**
+   * Constructs a tokenizer over the whole of the file open in the given channel.
+   *
+   * @param channel a channel open for reading on the file
+   * @throws IOException when the file cannot be mapped
+   */
+  MappedTokenizer(FileChannel channel) throws IOException {
+    this(channel, 0, channel.size(), 1);
+  }
+
+  /**
+   * Constructs a tokenizer over part of the file open in the given channel. The part must start at
+   * the beginning of a line, so that it does not start in the middle of a token or a comment.
+   *
+   * @param channel   a channel open for reading on the file
+   * @param from      the byte offset in the file of the start of the part
+   * @param to        the byte offset in the file of the end of the part
+   * @param firstLine the line number of the start of the part
+   * @throws IOException when the file cannot be mapped
+   */
+  MappedTokenizer(FileChannel channel, long from, long to, long firstLine) throws IOException {
+    this.channel = channel;
+    this.size = to;
+    this.base = from;
+    this.limit = (int) Math.min(WINDOW, to - from);
+    this.map = channel.map(FileChannel.MapMode.READ_ONLY, from, limit);
+    this.pos = 0;
+    this.ready = false;
+    this.scanning = false;
+    this.line = firstLine;
+    this.tokenLine = firstLine;
+    this.tokenOffset = from;
+    this.lastBytes = new byte[0];
+    this.lastWord = "";
+  }
+
+  /**
+   * Determines whether another token is available, skipping any whitespace and comments in front
+   * of it.
+   *
+   * @return true if there is another token, false at the end of the file
+   */
+  @Override
+  public boolean hasNext() {
+    if (ready) {
+      return true;
+    }
+    while (true) {
+      if (pos == limit && !slide()) {
+        return false;
+      }
+      byte c = map.get(pos);
+      if (c == '#') {
+        skipLine(null);
+      } else if (isSpace(c)) {
+        if (c == '\n') {
+          line++;
+        }
+        pos++;
+      } else {
+        break;
+      }
+    }
+    start = pos;
+    scanning = true;
+    while (true) {
+      if (pos == limit && !slide()) {
+        break;
+      }
+      byte c = map.get(pos);
+      if (c == '#' || isSpace(c)) {
+        break;
+      }
+      pos++;
+    }
+    scanning = false;
+    end = pos;
+    tokenLine = line;
+    tokenOffset = base + start;
+    ready = true;
+    return true;
+  }
+
+  /**
+   * Determines whether the next token is the given ASCII word, without consuming it.
+   *
+   * @param word the word to compare the next token with
+   * @return true if the next token is exactly the given word, false otherwise
+   */
+  @Override
+  public boolean nextIs(String word) {
+    if (!hasNext() || end - start != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      if (map.get(start + i) != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Consumes the next token and returns it as a string, decoded as UTF-8. A token equal to the
+   * previous one returned by this method is returned as the same string, since the same shape
+   * name tends to appear on many lines in a row.
+   *
+   * @return the next token
+   * @throws IllegalStateException when there is no more input
+   */
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new IllegalStateException("No more input available");
+    }
+    boolean same = end - start == lastBytes.length;
+    for (int i = 0; same && i < lastBytes.length; i++) {
+      same = map.get(start + i) == lastBytes[i];
+    }
+    if (!same) {
+      lastBytes = new byte[end - start];
+      for (int i = 0; i < lastBytes.length; i++) {
+        lastBytes[i] = map.get(start + i);
+      }
+      lastWord = new String(lastBytes, StandardCharsets.UTF_8);
+    }
+    ready = false;
+    return lastWord;
+  }
+
+  /**
+   * Consumes the next token without making a string of it, so that a keyword between two names
+   * does not stop the second name from being returned as the same string as the first.
+   *
+   * @throws IllegalStateException when there is no more input
+   */
+  @Override
+  public void skip() {
+    if (!hasNext()) {
+      throw new IllegalStateException("No more input available");
+    }
+    ready = false;
+  }
+
+  /**
+   * Determines whether the next token is an integer: an optional sign followed by decimal digits,
+   * whose value fits in an int.
+   *
+   * @return true if the next token is an integer, false otherwise
+   */
+  @Override
+  public boolean hasNextInt() {
+    if (!hasNext()) {
+      return false;
+    }
+    int i = start;
+    byte sign = map.get(i);
+    if (sign == '-' || sign == '+') {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      byte c = map.get(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      value = value * 10 + (c - '0');
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        return false;
+      }
+    }
+    return sign == '-' || value <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Consumes the next token as an integer, parsing it where it lies in the mapping.
+   *
+   * @return the value of the next token
+   * @throws IllegalStateException when the next token is not an integer
+   */
+  @Override
+  public int nextInt() {
+    if (!hasNextInt()) {
+      throw new IllegalStateException("Expected an integer");
+    }
+    ready = false;
+    int i = start;
+    boolean negative = map.get(i) == '-';
+    if (negative || map.get(i) == '+') {
+      i++;
+    }
+    int value = 0;
+    for (; i < end; i++) {
+      value = value * 10 - (map.get(i) - '0');
+    }
+    return negative ? value : -value;
+  }
+
+  /**
+   * Consumes the rest of the current line, including any comment, and returns it without its line
+   * terminator.
+   *
+   * @return the rest of the current line
+   */
+  @Override
+  public String nextLine() {
+    if (ready) {
+      pos = start;
+      ready = false;
+    }
+    ByteArrayOutputStream rest = new ByteArrayOutputStream();
+    skipLine(rest);
+    return new String(rest.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Moves the tokenizer to a byte offset in the file, which must be the start of a token. The
+   * current window is kept when the offset lies in it. Line numbers are not known after a seek, so
+   * they are only meaningful for a tokenizer that has read the file from its start.
+   *
+   * @param offset the byte offset in the file to read the next token from
+   * @throws UncheckedIOException when the window around the offset cannot be mapped
+   */
+  void seek(long offset) {
+    ready = false;
+    if (offset >= base && offset < base + limit) {
+      pos = (int) (offset - base);
+      return;
+    }
+    base = offset;
+    pos = 0;
+    limit = (int) Math.min(WINDOW, size - base);
+    try {
+      map = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Describes where in the file the last token found starts.
+   *
+   * @return the line and byte offset of the last token
+   */
+  String position() {
+    return String.format("line %d, byte %d", tokenLine, tokenOffset);
+  }
+
+  /**
+   * Returns the line number of the last token found.
+   *
+   * @return the line of the last token
+   */
+  long tokenLine() {
+    return tokenLine;
+  }
+
+  /**
+   * Returns the byte offset in the file of the last token found.
+   *
+   * @return the byte offset of the last token
+   */
+  long tokenOffset() {
+    return tokenOffset;
+  }
+
+  /**
+   * Returns the line number the tokenizer has reached, which once every token has been read is one
+   * more than the number of lines it has passed.
+   *
+   * @return the current line
+   */
+  long line() {
+    return line;
+  }
+
+  /**
+   * Skips to the end of the current line, leaving the line terminator to be skipped as whitespace.
+   *
+   * @param rest where to copy the skipped bytes, or null to drop them
+   */
+  private void skipLine(ByteArrayOutputStream rest) {
+    while (true) {
+      if (pos == limit && !slide()) {
+        return;
+      }
+      byte c = map.get(pos);
+      if (c == '\n' || c == '\r') {
+        return;
+      }
+      if (rest != null) {
+        rest.write(c);
+      }
+      pos++;
+    }
+  }
+
+  /**
+   * Maps the next window of the file, starting at the token being scanned if there is one so that
+   * it stays whole, or at the current position otherwise.
+   *
+   * @return true if there is more of the file to read, false at the end of the file
+   * @throws IllegalStateException when a single token is larger than a whole window
+   */
+  private boolean slide() {
+    if (base + limit >= size) {
+      return false;
+    }
+    int keep = scanning ? start : pos;
+    if (keep == 0) {
+      throw new IllegalStateException("Token at byte " + (base + start) + " is too long");
+    }
+    base += keep;
+    pos -= keep;
+    start -= keep;
+    end -= keep;
+    limit = (int) Math.min(WINDOW, size - base);
+    try {
+      map = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Determines whether a byte is POSIX whitespace, which is what {@code \p{Space}} matches.
+   *
+   * @param c the byte to check
+   * @return true if the byte is whitespace, false otherwise
+   */
+  private static boolean isSpace(byte c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+}
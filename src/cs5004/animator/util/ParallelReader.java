@@ -0,0 +1,191 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A class to read an animation file on a fork/join pool. The file is split into chunks that end
+ * at a line boundary, so that no token or comment is split between two chunks. Each chunk is read
+ * on the pool into compact {@link Statements}, which are replayed into the builder in file order,
+ * so the builder is called exactly as a sequential read would call it. Only a bounded number of
+ * chunks is read ahead of the one being replayed.
+ *
+ * <p>A statement may run over several lines, so a chunk can end in the middle of one. A chunk
+ * that runs out of input partway through a statement is replayed up to that statement, and the
+ * rest of the file is then read sequentially from its start, which gives the same result as
+ * reading the whole file sequentially.
+ */
+final class ParallelReader {
+  private static final long CHUNK = 1L << 22;
+
+  private final FileChannel channel;
+  private final long size;
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructs a reader over the file open in the given channel.
+   *
+   * @param channel a channel open for reading on the file
+   * @throws IOException when the size of the file cannot be found
+   */
+  ParallelReader(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+    this.pool = ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Reads every statement of the file into a builder, in file order.
+   *
+   * @param builder the builder to pass each statement to
+   * @param <Doc>   The main model interface type describing animations
+   * @throws IOException           when the file cannot be read
+   * @throws IllegalStateException when the file is malformed, with the line and byte offset of
+   *                               the error in its message
+   */
+  <Doc> void read(AnimationBuilder<Doc> builder) throws IOException {
+    if (size <= CHUNK) {
+      AnimationReader.readAll(new MappedTokenizer(channel), builder);
+      return;
+    }
+    int ahead = Math.max(2, pool.getParallelism() * 2);
+    ArrayDeque<Task> pending = new ArrayDeque<>();
+    long next = 0;
+    long line = 1;
+    try {
+      while (next < size || !pending.isEmpty()) {
+        while (next < size && pending.size() < ahead) {
+          long end = lineBoundary(next + CHUNK);
+          Task task = new Task(next, end);
+          pool.execute(task);
+          pending.add(task);
+          next = end;
+        }
+        Records records = pending.remove().join();
+        records.drainTo(builder);
+        if (records.ioError != null) {
+          throw records.ioError;
+        }
+        if (records.error != null) {
+          throw new IllegalStateException(String.format("%s (line %d, byte %d)",
+                  records.error.getMessage(), line + records.errorLine - 1, records.errorOffset),
+                  records.error);
+        }
+        if (records.restOffset >= 0) {
+          AnimationReader.readAll(new MappedTokenizer(channel, records.restOffset, size,
+                  line + records.restLine - 1), builder);
+          return;
+        }
+        line += records.lines;
+      }
+    } finally {
+      for (Task task : pending) {
+        task.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Finds the first line boundary at or after a byte offset, which is just after a newline.
+   *
+   * @param from the byte offset to search from
+   * @return the offset just after the next newline, or the size of the file if there is none
+   * @throws IOException when the file cannot be read
+   */
+  private long lineBoundary(long from) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    long position = from;
+    while (position < size) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += n;
+    }
+    return size;
+  }
+
+  /**
+   * A class to represent the reading of one chunk of the file on the pool.
+   */
+  private final class Task extends RecursiveTask<Records> {
+    private static final long serialVersionUID = 1L;
+
+    private final long from;
+    private final long to;
+
+    /**
+     * Constructs a task to read the chunk between two line boundaries.
+     *
+     * @param from the byte offset of the start of the chunk
+     * @param to   the byte offset of the end of the chunk
+     */
+    private Task(long from, long to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     * Reads the statements of the chunk, stopping at the first error or at a statement that runs
+     * past the end of the chunk.
+     *
+     * @return the records of the statements read
+     */
+    @Override
+    protected Records compute() {
+      Records records = new Records();
+      try {
+        MappedTokenizer s = new MappedTokenizer(channel, from, to, 1);
+        long offset = from;
+        long line = 1;
+        try {
+          while (s.hasNext()) {
+            offset = s.tokenOffset();
+            line = s.tokenLine();
+            AnimationReader.readStatement(s, records);
+          }
+        } catch (IllegalStateException e) {
+          records.errorLine = s.tokenLine();
+          records.errorOffset = s.tokenOffset();
+          if (to < size && !s.hasNext()) {
+            records.restOffset = offset;
+            records.restLine = line;
+          } else {
+            records.error = e;
+          }
+        }
+        records.lines = s.line() - 1;
+      } catch (IOException e) {
+        records.ioError = e;
+      } catch (UncheckedIOException e) {
+        records.ioError = e.getCause();
+      }
+      return records;
+    }
+  }
+
+  /**
+   * A class to represent the statements read from one chunk, together with where the reading of
+   * the chunk stopped.
+   */
+  private static final class Records extends Statements {
+    private long lines = 0;
+    private long restOffset = -1;
+    private long restLine = 0;
+    private IllegalStateException error = null;
+    private long errorLine = 0;
+    private long errorOffset = 0;
+    private IOException ioError = null;
+  }
+}
@@ -0,0 +1,271 @@
+package cs5004.animator.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A class to record animation statements compactly and pass them on to another builder later. The
+ * statements are kept as a list of operations, each with the name it mentions, over one array of
+ * their integer arguments, so a run of motions of the same shape lies in one block of the array
+ * and is passed on with a single call to {@link AnimationBuilder#addMotions}. A name used by
+ * several statements in a row is stored once. Each statement can also be given the place in the
+ * file it was read from, so that an error the builder reports when the statements are passed on
+ * names the statement that caused it.
+ */
+class Statements implements AnimationBuilder<Void> {
+  private static final byte BOUNDS = 0;
+  private static final byte SHAPE = 1;
+  private static final byte MOTION = 2;
+
+  private byte[] ops = new byte[256];
+  private int[] opNames = new int[256];
+  private long[] opLines = new long[256];
+  private long[] opOffsets = new long[256];
+  private long line = -1;
+  private long offset = -1;
+  private int opCount = 0;
+  private int[] values = new int[256 * 16];
+  private int valueCount = 0;
+  private String[] names = new String[16];
+  private int nameCount = 0;
+
+  /**
+   * Returns the number of statements recorded and not yet passed on.
+   *
+   * @return the number of statements
+   */
+  int size() {
+    return opCount;
+  }
+
+  /**
+   * Sets the place in the file of the statements recorded next, until it is set again.
+   *
+   * @param line   the line the statement starts on
+   * @param offset the byte offset in the file the statement starts at
+   */
+  void at(long line, long offset) {
+    this.line = line;
+    this.offset = offset;
+  }
+
+  /**
+   * Records nothing, since the statements are only passed on to another builder.
+   *
+   * @return null
+   */
+  @Override
+  public Void build() {
+    return null;
+  }
+
+  /**
+   * Records the bounding box of the animation.
+   *
+   * @param x      The leftmost x value
+   * @param y      The topmost y value
+   * @param width  The width of the bounding box
+   * @param height The height of the bounding box
+   * @return these statements
+   */
+  @Override
+  public AnimationBuilder<Void> setBounds(int x, int y, int width, int height) {
+    op(BOUNDS, -1, 4);
+    values[valueCount++] = x;
+    values[valueCount++] = y;
+    values[valueCount++] = width;
+    values[valueCount++] = height;
+    return this;
+  }
+
+  /**
+   * Records the declaration of a shape.
+   *
+   * @param name The unique name of the shape to be added
+   * @param type The type of shape to be added
+   * @return these statements
+   */
+  @Override
+  public AnimationBuilder<Void> declareShape(String name, String type) {
+    op(SHAPE, name(name), 1);
+    values[valueCount++] = name(type);
+    return this;
+  }
+
+  /**
+   * Records a motion of a shape.
+   *
+   * @param name The name of the shape
+   * @param t1   The start time of this transformation
+   * @param x1   The initial x-position of the shape
+   * @param y1   The initial y-position of the shape
+   * @param w1   The initial width of the shape
+   * @param h1   The initial height of the shape
+   * @param r1   The initial red color-value of the shape
+   * @param g1   The initial green color-value of the shape
+   * @param b1   The initial blue color-value of the shape
+   * @param t2   The end time of this transformation
+   * @param x2   The final x-position of the shape
+   * @param y2   The final y-position of the shape
+   * @param w2   The final width of the shape
+   * @param h2   The final height of the shape
+   * @param r2   The final red color-value of the shape
+   * @param g2   The final green color-value of the shape
+   * @param b2   The final blue color-value of the shape
+   * @return these statements
+   */
+  @Override
+  public AnimationBuilder<Void> addMotion(String name,
+                                          int t1, int x1, int y1, int w1,
+                                          int h1, int r1, int g1, int b1,
+                                          int t2, int x2, int y2, int w2,
+                                          int h2, int r2, int g2, int b2) {
+    op(MOTION, name(name), 16);
+    int[] v = values;
+    int i = valueCount;
+    v[i] = t1;
+    v[i + 1] = x1;
+    v[i + 2] = y1;
+    v[i + 3] = w1;
+    v[i + 4] = h1;
+    v[i + 5] = r1;
+    v[i + 6] = g1;
+    v[i + 7] = b1;
+    v[i + 8] = t2;
+    v[i + 9] = x2;
+    v[i + 10] = y2;
+    v[i + 11] = w2;
+    v[i + 12] = h2;
+    v[i + 13] = r2;
+    v[i + 14] = g2;
+    v[i + 15] = b2;
+    valueCount += 16;
+    return this;
+  }
+
+  /**
+   * Passes every recorded statement to a builder, in the order they were recorded, and forgets
+   * them. They are forgotten before they are passed on, so that when the builder rejects one the
+   * rest are not passed on again by a later call.
+   *
+   * @param builder the builder to pass the statements to
+   * @param <Doc>   The main model interface type describing animations
+   * @throws IllegalStateException when the builder rejects a statement. This and the other
+   *                               exceptions the builder throws for a bad statement, such as
+   *                               {@link IllegalArgumentException} and
+   *                               {@link NoSuchElementException}, keep their kind but have the
+   *                               place of the statement added to their message when it is known;
+   *                               for a run of motions passed on together, that is the lines of
+   *                               the run
+   */
+  <Doc> void drainTo(AnimationBuilder<Doc> builder) {
+    int count = opCount;
+    opCount = 0;
+    valueCount = 0;
+    nameCount = 0;
+    int[] v = values;
+    int i = 0;
+    int op = 0;
+    while (op < count) {
+      int run = op + 1;
+      try {
+        switch (ops[op]) {
+          case BOUNDS:
+            builder.setBounds(v[i], v[i + 1], v[i + 2], v[i + 3]);
+            i += 4;
+            break;
+          case SHAPE:
+            builder.declareShape(names[opNames[op]], names[v[i]]);
+            i += 1;
+            break;
+          default:
+            while (run < count && ops[run] == MOTION && opNames[run] == opNames[op]) {
+              run++;
+            }
+            builder.addMotions(names[opNames[op]], run - op, v, i);
+            i += 16 * (run - op);
+            break;
+        }
+      } catch (IllegalStateException | IllegalArgumentException | NoSuchElementException e) {
+        if (opLines[op] < 0) {
+          throw e;
+        }
+        throw located(e, position(op, run - 1));
+      }
+      op = run;
+    }
+  }
+
+  /**
+   * Returns an exception of the same kind as the one given, with a place in the file added to its
+   * message and the original as its cause.
+   *
+   * @param e     the exception the builder threw
+   * @param where the place in the file of the statement it rejected
+   * @return the exception to throw instead
+   */
+  private static RuntimeException located(RuntimeException e, String where) {
+    String message = e.getMessage() + " (" + where + ")";
+    if (e instanceof IllegalArgumentException) {
+      return new IllegalArgumentException(message, e);
+    } else if (e instanceof NoSuchElementException) {
+      return new NoSuchElementException(message, e);
+    }
+    return new IllegalStateException(message, e);
+  }
+
+  /**
+   * Describes the place in the file of a statement, or of a run of statements.
+   *
+   * @param first the first statement
+   * @param last  the last statement, which may be the first
+   * @return the line, or lines, and the byte offset the statements start at
+   */
+  private String position(int first, int last) {
+    if (opLines[first] == opLines[last]) {
+      return String.format("line %d, byte %d", opLines[first], opOffsets[first]);
+    }
+    return String.format("lines %d to %d, byte %d", opLines[first], opLines[last],
+            opOffsets[first]);
+  }
+
+  /**
+   * Appends an operation, making room for its arguments.
+   *
+   * @param op    the kind of statement
+   * @param name  the index of the name the statement mentions, or -1 if there is none
+   * @param width the number of integer arguments it takes
+   */
+  private void op(byte op, int name, int width) {
+    if (opCount == ops.length) {
+      ops = Arrays.copyOf(ops, ops.length * 2);
+      opNames = Arrays.copyOf(opNames, opNames.length * 2);
+      opLines = Arrays.copyOf(opLines, opLines.length * 2);
+      opOffsets = Arrays.copyOf(opOffsets, opOffsets.length * 2);
+    }
+    ops[opCount] = op;
+    opLines[opCount] = line;
+    opOffsets[opCount] = offset;
+    opNames[opCount++] = name;
+    if (valueCount + width > values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+  }
+
+  /**
+   * Finds the index of a name, storing it unless it is the last name stored.
+   *
+   * @param name the name to store
+   * @return the index of the name
+   */
+  private int name(String name) {
+    if (nameCount > 0 && name.equals(names[nameCount - 1])) {
+      return nameCount - 1;
+    }
+    if (nameCount == names.length) {
+      names = Arrays.copyOf(names, names.length * 2);
+    }
+    names[nameCount] = name;
+    return nameCount++;
+  }
+}
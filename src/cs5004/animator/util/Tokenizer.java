@@ -0,0 +1,63 @@
+package cs5004.animator.util;
+
+/**
+ * An interface for a source of tokens read from animation input. Tokens are separated by
+ * whitespace, and everything from a # to the end of its line is skipped as a comment.
+ */
+interface Tokenizer {
+
+  /**
+   * Determines whether another token is available, skipping any whitespace and comments in front
+   * of it.
+   *
+   * @return true if there is another token, false at the end of the input
+   */
+  boolean hasNext();
+
+  /**
+   * Determines whether the next token is the given word, without consuming it.
+   *
+   * @param word the word to compare the next token with
+   * @return true if the next token is exactly the given word, false otherwise
+   */
+  boolean nextIs(String word);
+
+  /**
+   * Consumes the next token and returns it as a string.
+   *
+   * @return the next token
+   * @throws IllegalStateException when there is no more input
+   */
+  String next();
+
+  /**
+   * Consumes the next token without making a string of it.
+   *
+   * @throws IllegalStateException when there is no more input
+   */
+  void skip();
+
+  /**
+   * Determines whether the next token is an integer: an optional sign followed by decimal digits,
+   * whose value fits in an int.
+   *
+   * @return true if the next token is an integer, false otherwise
+   */
+  boolean hasNextInt();
+
+  /**
+   * Consumes the next token as an integer.
+   *
+   * @return the value of the next token
+   * @throws IllegalStateException when the next token is not an integer
+   */
+  int nextInt();
+
+  /**
+   * Consumes the rest of the current line, including any comment, and returns it without its line
+   * terminator.
+   *
+   * @return the rest of the current line
+   */
+  String nextLine();
+}
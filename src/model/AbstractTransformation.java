@@ -7,18 +7,21 @@ public abstract class AbstractTransformation implements ITransformation {
   protected int start;
   protected int end;
   protected TransformationType type;
+  protected String shapeID;
 
   /**
-   * A method to construct a transformation object initialized to a given start and end type, and
-   * type of transformation.
+   * A method to construct a transformation object initialized to a given start and end type, type
+   * of transformation, and id of the shape it is performed on.
    * @param start the integer start time of the transformation
    * @param end the integer end time of the transformation
    * @param type an enum representing type of transformation
+   * @param shapeID the id of the shape the transformation is performed on
    */
-  public AbstractTransformation(int start, int end, TransformationType type) {
+  public AbstractTransformation(int start, int end, TransformationType type, String shapeID) {
     this.start = start;
     this.end = end;
     this.type = type;
+    this.shapeID = shapeID;
   }
 
   /**
@@ -47,4 +50,13 @@ public abstract class AbstractTransformation implements ITransformation {
   public TransformationType getType() {
     return type;
   }
+
+  /**
+   * A method to return the id of the shape the transformation is performed on.
+   * @return a string representing the id of the shape
+   */
+  @Override
+  public String getShapeID() {
+    return shapeID;
+  }
 }
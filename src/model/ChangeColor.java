@@ -10,7 +10,6 @@ public class ChangeColor extends AbstractTransformation {
   int endR;
   int endG;
   int endB;
-  IShape s;
 
   /**
    * A method to construct a color change transformation initialized to a given start time, end
@@ -28,14 +27,32 @@ public class ChangeColor extends AbstractTransformation {
    */
   public ChangeColor(int start, int end, int startR, int startG, int startB, int endR, int endG,
                      int endB, IShape shape) {
-    super(start, end, TransformationType.CHANGECOLOR);
+    this(start, end, startR, startG, startB, endR, endG, endB, shape.getID());
+  }
+
+  /**
+   * A method to construct a color change transformation initialized to a given start time, end
+   * time, start R value, start G value, start B value, end R value, end G value, end B value,
+   * and id of the shape to perform the transformation on.
+   * @param start integer start time of the transformation
+   * @param end integer end time of the transformation
+   * @param startR integer start R value of the transformation
+   * @param startG integer start G value of the transformation
+   * @param startB integer start B value of the transformation
+   * @param endR integer end R value of the transformation
+   * @param endG integer end G value of the transformation
+   * @param endB integer end B value of the transformation
+   * @param shapeID the id of the shape on which the transformation is performed
+   */
+  public ChangeColor(int start, int end, int startR, int startG, int startB, int endR, int endG,
+                     int endB, String shapeID) {
+    super(start, end, TransformationType.CHANGECOLOR, shapeID);
     this.startR = startR;
     this.startG = startG;
     this.startB = startB;
     this.endR = endR;
     this.endG = endG;
     this.endB = endB;
-    this.s = shape.copy();
   }
 
   /**
@@ -123,7 +140,7 @@ public class ChangeColor extends AbstractTransformation {
   @Override
   public String toString() {
     return String.format("Shape %s changes color from (%d, %d, %d) to (%d, %d, %d)"
-                    + " from t = %d to t = %d", s.getID(), startR, startG, startB, endR, endG,
+                    + " from t = %d to t = %d", shapeID, startR, startG, startB, endR, endG,
             endB, start, end);
   }
 }
@@ -0,0 +1,138 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A class to evaluate the frames of an animation over a range of ticks, one frame at a time. Every
+ * shape keeps a lookup hint per track that advances along with the ticks, so each frame picks up
+ * where the previous one left off instead of searching the transformations again. The hints belong
+ * to this iterator alone, so several iterators may run over the same animation at once.
+ *
+ * <p>When buffers are reused, every frame is written into the same arrays and a returned
+ * {@link FrameSnapshot} is only valid until the next call to {@link #next()}; otherwise each frame
+ * is an independent snapshot. Either way the live shapes of every frame are looked up into the
+ * same array, which only grows when a frame holds more live shapes than any before it.</p>
+ */
+abstract class FrameIterator implements Iterator<FrameSnapshot> {
+  private final LifetimeIndex lifetimes;
+  private final int to;
+  private final int step;
+  private final boolean reuse;
+  private final int[] hints;
+  private final int tracks;
+  private int tick;
+  private int[] live;
+  private String[] ids;
+  private ShapeType[] types;
+  private int[] values;
+
+  /**
+   * A method to construct an iterator over the frames of an animation.
+   * @param lifetimes the lifetimes of the shapes in the animation
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @param reuse whether to write every frame into the same buffers
+   * @param tracks the number of lookup hints each shape needs
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  FrameIterator(LifetimeIndex lifetimes, int from, int to, int step, boolean reuse, int tracks) {
+    if (from < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    else if (to < from) {
+      throw new IllegalArgumentException("The range of ticks cannot end before it starts");
+    }
+    else if (step < 1) {
+      throw new IllegalArgumentException("The step between frames must be at least 1");
+    }
+    this.lifetimes = lifetimes;
+    this.to = to;
+    this.step = step;
+    this.reuse = reuse;
+    this.tracks = tracks;
+    this.hints = new int[lifetimes.size() * tracks];
+    Arrays.fill(hints, -1);
+    this.tick = from;
+    this.live = new int[0];
+    this.ids = new String[0];
+    this.types = new ShapeType[0];
+    this.values = new int[0];
+  }
+
+  /**
+   * A method to determine whether there are frames left in the range.
+   * @return true if another frame can be evaluated, false otherwise
+   */
+  @Override
+  public boolean hasNext() {
+    return tick < to;
+  }
+
+  /**
+   * A method to evaluate the next frame in the range. Only shapes that existed when this iterator
+   * was created are included.
+   * @return a snapshot of every live shape at the next tick
+   * @throws NoSuchElementException when every frame in the range has been evaluated
+   */
+  @Override
+  public FrameSnapshot next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No frames left in the range");
+    }
+    int found = lifetimes.liveAt(tick, live);
+    if (found > live.length) {
+      live = new int[Math.max(found, live.length * 2)];
+      lifetimes.liveAt(tick, live);
+    }
+    int shapes = hints.length / tracks;
+    if (!reuse || ids.length < found) {
+      int capacity = reuse ? Math.max(shapes, found) : found;
+      ids = new String[capacity];
+      types = new ShapeType[capacity];
+      values = new int[capacity * FrameSnapshot.FIELDS];
+    }
+    int size = 0;
+    for (int i = 0; i < found; i++) {
+      int handle = live[i];
+      if (handle < shapes) {
+        ids[size] = idOf(handle);
+        types[size] = typeOf(handle);
+        stateAt(handle, tick, values, size * FrameSnapshot.FIELDS, hints, handle * tracks);
+        size++;
+      }
+    }
+    FrameSnapshot frame = new FrameSnapshot(tick, ids, types, values, size);
+    tick = tick > to - step ? to : tick + step;
+    return frame;
+  }
+
+  /**
+   * A method to return the id of a shape.
+   * @param handle the position of the shape in declaration order
+   * @return the id of the shape
+   */
+  abstract String idOf(int handle);
+
+  /**
+   * A method to return the type of a shape.
+   * @param handle the position of the shape in declaration order
+   * @return the type of the shape
+   */
+  abstract ShapeType typeOf(int handle);
+
+  /**
+   * A method to write the attributes of a shape at the given tick into an array, starting each
+   * lookup from the hints of the shape and leaving them where the lookups landed.
+   * @param handle the position of the shape in declaration order
+   * @param tick the time elapsed in the animation
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   * @param hints the lookup hints of every shape
+   * @param hint the index of the first hint of this shape
+   */
+  abstract void stateAt(int handle, double tick, int[] out, int offset, int[] hints, int hint);
+}
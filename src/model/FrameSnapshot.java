@@ -0,0 +1,180 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to represent the immutable state of every shape in an animation at one point in time.
+ * The shapes are stored in packed arrays rather than as separate objects, and a
+ * {@link ShapeSnapshot} is only created when one is asked for. The one exception to immutability
+ * is a snapshot from {@link IModel#frames(int, int, int, boolean)} with reused buffers, which is
+ * overwritten by the next frame of the same range.
+ */
+public final class FrameSnapshot {
+  static final int FIELDS = 7;
+
+  private final double time;
+  private final String[] ids;
+  private final ShapeType[] types;
+  private final int[] values;
+  private final int size;
+
+  /**
+   * A method to construct a frame snapshot over the given packed shape state. The arrays are owned
+   * by the snapshot once it is constructed.
+   * @param time the time in the animation the snapshot was taken at
+   * @param ids the identifiers of the shapes, in declaration order
+   * @param types the types of the shapes, in declaration order
+   * @param values the x, y, width, height, r, g and b values of each shape, one after the other
+   * @param size the number of shapes in the snapshot
+   */
+  FrameSnapshot(double time, String[] ids, ShapeType[] types, int[] values, int size) {
+    this.time = time;
+    this.ids = ids;
+    this.types = types;
+    this.values = values;
+    this.size = size;
+  }
+
+  /**
+   * A method to return the time in the animation this snapshot was taken at.
+   * @return the time of the snapshot
+   */
+  public double getTime() {
+    return time;
+  }
+
+  /**
+   * A method to return the number of shapes in this snapshot.
+   * @return the number of shapes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * A method to get the id of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return a string representing the id of the shape
+   */
+  public String getID(int i) {
+    return ids[checkIndex(i)];
+  }
+
+  /**
+   * A method to return the type of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return an enum representing type of shape
+   */
+  public ShapeType getType(int i) {
+    return types[checkIndex(i)];
+  }
+
+  /**
+   * A method to get the x coordinate of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the x coordinate of the shape
+   */
+  public int getX(int i) {
+    return values[checkIndex(i) * FIELDS];
+  }
+
+  /**
+   * A method to get the y coordinate of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the y coordinate of the shape
+   */
+  public int getY(int i) {
+    return values[checkIndex(i) * FIELDS + 1];
+  }
+
+  /**
+   * A method to return the width of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the integer width of the shape
+   */
+  public int getWidth(int i) {
+    return values[checkIndex(i) * FIELDS + 2];
+  }
+
+  /**
+   * A method to return the height of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the integer height of the shape
+   */
+  public int getHeight(int i) {
+    return values[checkIndex(i) * FIELDS + 3];
+  }
+
+  /**
+   * A method to get the R component of the color of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the integer R value of the shape
+   */
+  public int getR(int i) {
+    return values[checkIndex(i) * FIELDS + 4];
+  }
+
+  /**
+   * A method to get the G component of the color of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the integer G value of the shape
+   */
+  public int getG(int i) {
+    return values[checkIndex(i) * FIELDS + 5];
+  }
+
+  /**
+   * A method to get the B component of the color of the shape at the given position.
+   * @param i the position of the shape in this snapshot
+   * @return the integer B value of the shape
+   */
+  public int getB(int i) {
+    return values[checkIndex(i) * FIELDS + 6];
+  }
+
+  /**
+   * A method to return the shape at the given position as its own snapshot object.
+   * @param i the position of the shape in this snapshot
+   * @return a snapshot of the shape
+   */
+  public ShapeSnapshot getShape(int i) {
+    int o = checkIndex(i) * FIELDS;
+    return new ShapeSnapshot(ids[i], types[i], values[o], values[o + 1], values[o + 2],
+            values[o + 3], values[o + 4], values[o + 5], values[o + 6]);
+  }
+
+  /**
+   * A method to return every shape in this snapshot, in declaration order.
+   * @return a list of shape snapshots
+   */
+  public List<ShapeSnapshot> getShapes() {
+    List<ShapeSnapshot> shapes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      shapes.add(getShape(i));
+    }
+    return shapes;
+  }
+
+  /**
+   * A method to represent this snapshot as a string, in the same form as a list of shapes.
+   * @return a string representation of this snapshot
+   */
+  @Override
+  public String toString() {
+    return getShapes().toString();
+  }
+
+  /**
+   * A method to check that a position refers to a shape in this snapshot.
+   * @param i the position to check
+   * @return the given position
+   * @throws IndexOutOfBoundsException when the position is outside this snapshot
+   */
+  private int checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("No shape at position " + i);
+    }
+    return i;
+  }
+}
@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -23,11 +24,72 @@ public interface IModel {
   void addShape(String id, IShape shape);
 
   /**
-   * Will be implemented in a later stage of this project.
+   * A method to get the shapes alive at a given tick in their time appropriate state. A shape is
+   * alive from the start of its first motion to the end of its last, and a shape without motions
+   * is always alive.
+   * @param tick a desired time for which to retrieve the current shapes in the animation
    * @return List of current shapes and their location at a given frame
    */
   List<IShape> getShapesAtTick(int tick);
 
+  /**
+   * A method to compute the state of every shape at a given tick from its original state and
+   * transformations alone, without changing any shape held by the animation.
+   * @param tick the tick in time to evaluate the animation at
+   * @return an immutable snapshot of every shape alive at the given tick
+   * @throws IllegalArgumentException when the tick is negative
+   */
+  FrameSnapshot evaluate(int tick);
+
+  /**
+   * A method to compute the state of every shape at a given time from its original state and
+   * transformations alone, without changing any shape held by the animation.
+   * @param time the time to evaluate the animation at, which may fall between ticks
+   * @return an immutable snapshot of every shape alive at the given time
+   * @throws IllegalArgumentException when the time is negative
+   */
+  FrameSnapshot evaluate(double time);
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time.
+   * Each frame continues the lookups of the previous one instead of searching again, which makes
+   * this much faster than evaluating the ticks one by one. No shape held by the animation is
+   * changed.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @return an iterator over an immutable snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  Iterator<FrameSnapshot> frames(int from, int to, int step);
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * optionally writing every frame into the same buffers. When the buffers are reused, a returned
+   * snapshot is only valid until the next frame is evaluated, and nothing is allocated per frame
+   * beyond the snapshot itself.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @param reuse whether to write every frame into the same buffers
+   * @return an iterator over a snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  Iterator<FrameSnapshot> frames(int from, int to, int step, boolean reuse);
+
+  /**
+   * A method to evaluate frames in parallel once they hold at least the given number of shapes.
+   * The shapes of such a frame are split into chunks that are evaluated on the common fork/join
+   * pool, and the result keeps the order in which the shapes were added. Frames are evaluated on
+   * the calling thread until this is called, and again after it is called with
+   * {@link Integer#MAX_VALUE}.
+   * @param threshold the smallest number of live shapes in a frame to evaluate in parallel
+   * @throws IllegalArgumentException when the threshold is less than 1
+   */
+  void setParallelThreshold(int threshold);
+
   /**
    * A method to get a shape with a given identifier from the current animation.
    * @param id a string identifier for the desired shape
@@ -32,4 +32,10 @@ public interface ITransformation {
    * @return an enum representing type of transformation
    */
   TransformationType getType();
+
+  /**
+   * A method to return the id of the shape a transformation is performed on.
+   * @return a string representing the id of the shape
+   */
+  String getShapeID();
 }
@@ -0,0 +1,488 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import cs5004.animator.util.AnimationBuilder;
+import cs5004.animator.util.AnimationIndex;
+
+/**
+ * A class to represent an animation whose shapes are only read from their file when they are
+ * first needed. Opening the animation builds an {@link AnimationIndex} of the file, which knows
+ * the lifetime of every shape and where its motions are, so a frame only reads the shapes alive
+ * in it. Each shape that has been read is kept in a model of its own. Once the shapes kept hold
+ * more motions than the cap, the shapes used least recently are dropped, to be read again if they
+ * are needed again, so the memory used stays bounded however large the file is.
+ *
+ * <p>A shape is only checked when it is read, so a transformation that overlaps another is
+ * reported by the first call that needs its shape rather than when the animation is opened.</p>
+ *
+ * <p>Shapes and transformations added after the animation is opened are kept in memory on top of
+ * the file. A shape added this way is held in a model of its own that is never dropped, and a
+ * transformation added to a shape of the file is added again whenever the shape is read.</p>
+ */
+public class LazyModel implements IModel {
+  private final AnimationIndex index;
+  private String[] ids;
+  private final LifetimeIndex lifetimes;
+  private final LinkedHashMap<Integer, Model> loaded;
+  private final Map<String, Integer> addedHandles;
+  private final Map<Integer, Model> added;
+  private final Map<Integer, List<ITransformation>> edits;
+  private final int maxMotions;
+  private Frame frame;
+  private int finalTick;
+  private int loadedMotions;
+
+  /**
+   * A method to construct a model over an animation file, reading only its index until shapes are
+   * needed.
+   * @param path the animation file
+   * @param maxMotions the number of motions to keep in memory before dropping shapes
+   * @throws IOException when the file cannot be opened or read
+   * @throws IllegalArgumentException when the cap is less than 1, or two shapes have the same name
+   * @throws IllegalStateException when the file is malformed
+   */
+  public LazyModel(Path path, int maxMotions) throws IOException {
+    if (maxMotions < 1) {
+      throw new IllegalArgumentException("The number of motions kept must be at least 1");
+    }
+    this.index = AnimationIndex.scan(path);
+    this.ids = new String[index.size()];
+    this.lifetimes = new LifetimeIndex();
+    this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+    this.addedHandles = new HashMap<>();
+    this.added = new HashMap<>();
+    this.edits = new HashMap<>();
+    this.maxMotions = maxMotions;
+    this.finalTick = 0;
+    this.loadedMotions = 0;
+    int[] bounds = index.getBounds();
+    this.frame = bounds == null ? null : new Frame(bounds[0], bounds[1], bounds[2], bounds[3]);
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = index.getName(i);
+      lifetimes.add();
+      if (index.getMotionCount(i) > 0) {
+        lifetimes.set(i, index.getFirstTick(i), index.getLastTick(i));
+        finalTick = Math.max(finalTick, index.getLastTick(i));
+      }
+    }
+  }
+
+  /**
+   * A method to return the model holding the shape with the given handle, reading the shape from
+   * the file if it is not kept, and dropping the shapes used least recently if the cap is passed.
+   * The transformations added to a shape read from the file are added to it again.
+   * @param handle the position of the shape in declaration order
+   * @return a model holding only the shape
+   */
+  private Model track(int handle) {
+    if (handle >= index.size()) {
+      return added.get(handle);
+    }
+    Model model = loaded.get(handle);
+    if (model != null) {
+      return model;
+    }
+    AnimationBuilder<IModel> builder = new Model.Builder();
+    if (frame != null) {
+      builder.setBounds(frame.getX(), frame.getY(), frame.getWidth(), frame.getHeight());
+    }
+    builder.declareShape(ids[handle], index.getType(handle));
+    try {
+      index.load(handle, builder);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    model = (Model) builder.build();
+    List<ITransformation> list = edits.get(handle);
+    if (list != null) {
+      for (ITransformation t : list) {
+        model.addTransformation(ids[handle], t);
+      }
+    }
+    loaded.put(handle, model);
+    loadedMotions += motionsOf(handle);
+    Iterator<Integer> eldest = loaded.keySet().iterator();
+    while (loadedMotions > maxMotions && loaded.size() > 1) {
+      loadedMotions -= motionsOf(eldest.next());
+      eldest.remove();
+    }
+    return model;
+  }
+
+  /**
+   * A method to count the motions of a shape read from the file, and the transformations added to
+   * it since.
+   * @param handle the position of the shape in declaration order
+   * @return the number of motions and transformations the model of the shape holds
+   */
+  private int motionsOf(int handle) {
+    List<ITransformation> list = edits.get(handle);
+    return index.getMotionCount(handle) + (list == null ? 0 : list.size());
+  }
+
+  /**
+   * A method to find the handle of the shape with the given id.
+   * @param id a string identifier for the desired shape
+   * @return the position of the shape in declaration order
+   * @throws IllegalArgumentException when the id is null or an empty string
+   * @throws NoSuchElementException when no shape has the given id
+   */
+  private int handleOf(String id) {
+    if (id == null) {
+      throw new IllegalArgumentException("The identifier cannot be null!");
+    }
+    else if (id.equals("")) {
+      throw new IllegalArgumentException("Invalid ID - is empty");
+    }
+    Integer handle = addedHandles.get(id);
+    if (handle != null) {
+      return handle;
+    }
+    return index.handleOf(id);
+  }
+
+  /**
+   * A method to create a frame for a model to represent an animation.
+   * @param x the left most x coordinate for the frame
+   * @param y the top most y coordinate for the frame
+   * @param width the width of the frame
+   * @param height the height of the frame
+   */
+  @Override
+  public void createFrame(int x, int y, int width, int height) {
+    this.frame = new Frame(x, y, width, height);
+  }
+
+  /**
+   * A method to add a shape object to an animation. The shape is kept in memory in a model of its
+   * own, after the shapes of the file.
+   * @param id the identifier for the shape
+   * @param shape a shape object
+   * @throws IllegalArgumentException when shape is null, id is null, id is an empty string, or id
+   *          is not unique
+   */
+  @Override
+  public void addShape(String id, IShape shape) {
+    if (shape == null) {
+      throw new IllegalArgumentException("The question cannot be null!");
+    }
+    else if (id == null) {
+      throw new IllegalArgumentException("The identifier cannot be null!");
+    }
+    else if (id.equals("")) {
+      throw new IllegalArgumentException("Invalid ID - is empty");
+    }
+    else if (index.contains(id) || addedHandles.containsKey(id)) {
+      throw new IllegalArgumentException("ID must be unique!");
+    }
+    Model model = new Model();
+    if (frame != null) {
+      model.createFrame(frame.getX(), frame.getY(), frame.getWidth(), frame.getHeight());
+    }
+    model.addShape(id, shape);
+    int handle = ids.length;
+    ids = Arrays.copyOf(ids, handle + 1);
+    ids[handle] = id;
+    lifetimes.add();
+    addedHandles.put(id, handle);
+    added.put(handle, model);
+  }
+
+  /**
+   * A method to add a transformation to a shape with the specified id. The transformation is kept
+   * in memory, so it is added again whenever a shape of the file is read again, and the lifetime of
+   * the shape grows to cover it.
+   * @param id a string identifier for a shape
+   * @param t a transformation object to add to a shape
+   * @throws IllegalArgumentException when the transformation is null, no shape has the id, or the
+   *          transformation overlaps another of its type on the same shape
+   */
+  @Override
+  public void addTransformation(String id, ITransformation t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transformation cannot be null");
+    }
+    int handle;
+    try {
+      handle = handleOf(id);
+    } catch (NoSuchElementException e) {
+      throw new IllegalArgumentException("No shape exists with given id");
+    }
+    track(handle).addTransformation(id, t);
+    List<ITransformation> list = edits.get(handle);
+    if (list == null) {
+      list = new ArrayList<>();
+      edits.put(handle, list);
+    }
+    list.add(t);
+    if (handle < index.size()) {
+      loadedMotions++;
+    }
+    int first = lifetimes.appearsAt(handle);
+    if (first == Integer.MIN_VALUE) {
+      lifetimes.set(handle, t.getStartTime(), t.getEndTime());
+    }
+    else {
+      lifetimes.set(handle, Math.min(first, t.getStartTime()),
+              Math.max(lifetimes.disappearsAt(handle), t.getEndTime()));
+    }
+    finalTick = Math.max(finalTick, t.getEndTime());
+  }
+
+  /**
+   * A method to get current shapes in an animation in their time appropriate state at a specific
+   * 'tick' in time, reading only the shapes alive at the tick. Only shapes alive at the tick, from
+   * the start of their first transformation to the end of their last, are updated and returned;
+   * shapes without transformations are always alive.
+   * @param tick a desired time for which to retrieve the current shapes in the animation.
+   * @return a list of the live shapes in their time appropriate state, in the order they were added
+   */
+  @Override
+  public List<IShape> getShapesAtTick(int tick) {
+    if (tick < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    if (tick == 0) {
+      resetAnimation();
+    }
+    int[] live = lifetimes.liveAt(tick);
+    List<IShape> shapesAtTick = new ArrayList<>(live.length);
+    List<Model> models = new ArrayList<>(live.length);
+    for (int handle : live) {
+      Model model = track(handle);
+      shapesAtTick.add(model.shapeAt(0, tick));
+      models.add(model);
+    }
+    if (tick == getFinalTick()) {
+      for (Model model : models) {
+        model.resetAnimation();
+      }
+      resetAnimation();
+    }
+    return shapesAtTick;
+  }
+
+  /**
+   * A method to compute the state of every shape at a given tick from its original state and
+   * transformations alone, reading only the shapes alive at the tick.
+   * @param tick the tick in time to evaluate the animation at
+   * @return an immutable snapshot of every live shape at the given tick
+   * @throws IllegalArgumentException when the tick is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(int tick) {
+    return evaluate((double) tick);
+  }
+
+  /**
+   * A method to compute the state of every shape at a given time from its original state and
+   * transformations alone, reading only the shapes alive at the time.
+   * @param time the time to evaluate the animation at, which may fall between ticks
+   * @return an immutable snapshot of every live shape at the given time
+   * @throws IllegalArgumentException when the time is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(double time) {
+    if (time < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    int[] live = lifetimes.liveAt(time);
+    String[] frameIds = new String[live.length];
+    ShapeType[] types = new ShapeType[live.length];
+    int[] values = new int[live.length * FrameSnapshot.FIELDS];
+    int[] hints = new int[ShapeTimeline.TRACKS];
+    IShape scratch = new Rectangle();
+    for (int i = 0; i < live.length; i++) {
+      Model model = track(live[i]);
+      Arrays.fill(hints, -1);
+      model.stateAt(0, time, scratch, values, i * FrameSnapshot.FIELDS, hints, 0);
+      frameIds[i] = ids[live[i]];
+      types[i] = model.getShape(ids[live[i]]).getType();
+    }
+    return new FrameSnapshot(time, frameIds, types, values, live.length);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * reading shapes as they come alive.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @return an iterator over an immutable snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step) {
+    return frames(from, to, step, false);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * reading shapes as they come alive and optionally writing every frame into the same buffers.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @param reuse whether to write every frame into the same buffers
+   * @return an iterator over a snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step, boolean reuse) {
+    final IShape scratch = new Rectangle();
+    return new FrameIterator(lifetimes, from, to, step, reuse, ShapeTimeline.TRACKS) {
+      @Override
+      String idOf(int handle) {
+        return ids[handle];
+      }
+
+      @Override
+      ShapeType typeOf(int handle) {
+        return track(handle).getShape(ids[handle]).getType();
+      }
+
+      @Override
+      void stateAt(int handle, double tick, int[] out, int offset, int[] hints, int hint) {
+        track(handle).stateAt(0, tick, scratch, out, offset, hints, hint);
+      }
+    };
+  }
+
+  /**
+   * A method to set the number of live shapes at which frames are evaluated in parallel. A lazy
+   * model reads its shapes on the calling thread, so it checks the threshold but evaluates every
+   * frame sequentially.
+   * @param threshold the smallest number of live shapes in a frame to evaluate in parallel
+   * @throws IllegalArgumentException when the threshold is less than 1
+   */
+  @Override
+  public void setParallelThreshold(int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("The parallel threshold must be at least 1");
+    }
+  }
+
+  /**
+   * A method to get a shape with a given identifier from the current animation, reading it if
+   * needed.
+   * @param id a string identifier for the desired shape
+   * @return the shape with the given identifier
+   * @throws IllegalArgumentException when the id is null or an empty string
+   * @throws NoSuchElementException when the element with the given id cannot be found in the list
+   */
+  @Override
+  public IShape getShape(String id) {
+    return track(handleOf(id)).getShape(id);
+  }
+
+  /**
+   * A method to return the shapes of the animation as they are now, reading every shape. The
+   * hashmap is created on every call.
+   * @return a hashmap with shape id as the key and a shape object as the value
+   */
+  @Override
+  public Map<String, IShape> getAnimationsCopy() {
+    Map<String, IShape> map = new LinkedHashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      map.put(ids[i], track(i).getShape(ids[i]));
+    }
+    return map;
+  }
+
+  /**
+   * A method to return the transformations of every shape, reading every shape. The hashmap is
+   * created on every call.
+   * @return a hashmap with shape id as the key and a list of transformations for that shape as the
+   *          value
+   */
+  @Override
+  public Map<String, List<ITransformation>> getTransformations() {
+    Map<String, List<ITransformation>> map = new LinkedHashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      map.put(ids[i], track(i).getTransformations().get(ids[i]));
+    }
+    return map;
+  }
+
+  /**
+   * A method to return the frame for the model which will specify dimensions for the animation
+   * frame.
+   * @return a frame object that contains coordinates for the animation frame.
+   */
+  @Override
+  public Frame getFrame() {
+    return frame;
+  }
+
+  /**
+   * A method to determine the last tick in an animation, which the index knows without reading
+   * any shape.
+   * @return an integer representing last tick in an animation, or 0 when it has no
+   *          transformations
+   */
+  @Override
+  public int getFinalTick() {
+    return finalTick;
+  }
+
+  /**
+   * A method to return the original shapes of the animation, reading every shape. The
+   * linkedHashMap is created on every call.
+   * @return a linkedHashMap for animation
+   */
+  @Override
+  public Map<String, IShape> getAnimation() {
+    Map<String, IShape> map = new LinkedHashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      map.put(ids[i], track(i).getAnimation().get(ids[i]));
+    }
+    return map;
+  }
+
+  /**
+   * A method to revert the shapes that are in memory back to their original state. Shapes read
+   * later start in their original state anyway.
+   * @return an empty linkedHashMap, as for {@link Model#resetAnimation}
+   */
+  @Override
+  public Map<String, IShape> resetAnimation() {
+    for (Model model : loaded.values()) {
+      model.resetAnimation();
+    }
+    for (Model model : added.values()) {
+      model.resetAnimation();
+    }
+    return new LinkedHashMap<>();
+  }
+
+  /**
+   * A method to represent the current animation as a string, reading every shape.
+   * @return a string representation of this animation
+   */
+  @Override
+  public String toString() {
+    StringBuilder animationString = new StringBuilder("Shapes:");
+    for (int i = 0; i < ids.length; i++) {
+      animationString.append(i == 0 ? "\n" : "\n\n").append(getShape(ids[i]).toString());
+    }
+    animationString.append("\n");
+    for (int i = 0; i < ids.length; i++) {
+      for (ITransformation transformation : track(i).getTransformations().get(ids[i])) {
+        animationString.append("\n").append(transformation.toString());
+      }
+    }
+    return animationString.toString();
+  }
+}
@@ -0,0 +1,244 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A class to index the lifetime of every shape in an animation, from the start of its first
+ * motion to the end of its last, so the shapes alive at a given tick can be found without looking
+ * at every shape. Shapes are referred to by their position in declaration order. A shape without
+ * any motions is alive at every tick.
+ *
+ * <p>The lifetimes are kept sorted by start time, with a tree of the latest end time under every
+ * range of that order. A lookup finds the lifetimes that have started by the tick with a binary
+ * search, then walks down only the parts of the tree that hold a lifetime still running, which
+ * takes time proportional to the number of shapes alive rather than to the number of shapes. The
+ * tree is rebuilt on the first lookup after a lifetime changes.</p>
+ */
+class LifetimeIndex {
+  private int[] appear;
+  private int[] disappear;
+  private int count;
+  private volatile Tree tree;
+
+  /**
+   * A method to construct an empty lifetime index.
+   */
+  LifetimeIndex() {
+    this.appear = new int[16];
+    this.disappear = new int[16];
+    this.count = 0;
+    this.tree = null;
+  }
+
+  /**
+   * A method to add the next shape in declaration order, which is alive at every tick until its
+   * lifetime is set.
+   */
+  void add() {
+    if (count == appear.length) {
+      appear = Arrays.copyOf(appear, count * 2);
+      disappear = Arrays.copyOf(disappear, count * 2);
+    }
+    appear[count] = Integer.MIN_VALUE;
+    disappear[count] = Integer.MAX_VALUE;
+    count++;
+    tree = null;
+  }
+
+  /**
+   * A method to set the lifetime of a shape.
+   * @param handle the position of the shape in declaration order
+   * @param first the tick the first motion of the shape starts at
+   * @param last the tick the last motion of the shape ends at
+   */
+  void set(int handle, int first, int last) {
+    if (appear[handle] != first || disappear[handle] != last) {
+      appear[handle] = first;
+      disappear[handle] = last;
+      tree = null;
+    }
+  }
+
+  /**
+   * A method to return the tick the lifetime of a shape starts at.
+   * @param handle the position of the shape in declaration order
+   * @return the first tick of the lifetime, or {@link Integer#MIN_VALUE} when it has not been set
+   */
+  int appearsAt(int handle) {
+    return appear[handle];
+  }
+
+  /**
+   * A method to return the tick the lifetime of a shape ends at.
+   * @param handle the position of the shape in declaration order
+   * @return the last tick of the lifetime, or {@link Integer#MAX_VALUE} when it has not been set
+   */
+  int disappearsAt(int handle) {
+    return disappear[handle];
+  }
+
+  /**
+   * A method to return the number of shapes in this index.
+   * @return the number of shapes
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * A method to find every shape alive at the given tick, that is every shape whose first motion
+   * starts at or before the tick and whose last motion ends at or after it.
+   * @param tick the time elapsed in the animation
+   * @return the positions of the live shapes, in declaration order
+   */
+  int[] liveAt(double tick) {
+    Tree t = tree();
+    int[] live = new int[t.liveAt(tick, new int[0])];
+    t.liveAt(tick, live);
+    return live;
+  }
+
+  /**
+   * A method to find every shape alive at the given tick and write their positions into an array,
+   * so that a caller looking up many ticks can reuse the same array. The positions are only
+   * written when they all fit; otherwise the caller should look up the tick again with an array
+   * at least as long as the number returned.
+   * @param tick the time elapsed in the animation
+   * @param live the array to write the positions of the live shapes into, in declaration order
+   * @return the number of live shapes, which may be more than the length of the array
+   */
+  int liveAt(double tick, int[] live) {
+    return tree().liveAt(tick, live);
+  }
+
+  /**
+   * A method to return the tree over the current lifetimes, building it if needed.
+   * @return the current tree
+   */
+  private Tree tree() {
+    Tree t = tree;
+    if (t == null) {
+      t = build();
+    }
+    return t;
+  }
+
+  /**
+   * A method to rebuild the tree from the current lifetimes, unless another thread already has.
+   * @return the current tree
+   */
+  private synchronized Tree build() {
+    if (tree == null) {
+      tree = new Tree(Arrays.copyOf(appear, count), Arrays.copyOf(disappear, count));
+    }
+    return tree;
+  }
+
+  /**
+   * A class to represent the lifetimes sorted by start time, with the latest end time under every
+   * node of a binary tree over that order. A tree is never changed once it is built, so any
+   * number of threads may look up live shapes in it at once.
+   */
+  private static final class Tree {
+    private final int[] handles;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnd;
+
+    /**
+     * A method to construct the tree over the given lifetimes.
+     * @param appear the start of the lifetime of every shape, in declaration order
+     * @param disappear the end of the lifetime of every shape, in declaration order
+     */
+    private Tree(int[] appear, int[] disappear) {
+      int n = appear.length;
+      long[] keys = new long[n];
+      for (int i = 0; i < n; i++) {
+        keys[i] = ((long) appear[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+      this.handles = new int[n];
+      this.starts = new int[n];
+      this.ends = new int[n];
+      for (int i = 0; i < n; i++) {
+        handles[i] = (int) keys[i];
+        starts[i] = appear[handles[i]];
+        ends[i] = disappear[handles[i]];
+      }
+      this.maxEnd = new int[Math.max(1, 4 * n)];
+      if (n > 0) {
+        fill(1, 0, n);
+      }
+    }
+
+    /**
+     * A method to record the latest end time under a node of the tree and all of its children.
+     * @param node the index of the node
+     * @param lo the first position covered by the node
+     * @param hi the position after the last one covered by the node
+     * @return the latest end time under the node
+     */
+    private int fill(int node, int lo, int hi) {
+      if (hi - lo == 1) {
+        maxEnd[node] = ends[lo];
+      } else {
+        int mid = (lo + hi) >>> 1;
+        maxEnd[node] = Math.max(fill(2 * node, lo, mid), fill(2 * node + 1, mid, hi));
+      }
+      return maxEnd[node];
+    }
+
+    /**
+     * A method to find every shape alive at the given tick, writing their positions into an array
+     * when they all fit. Only the parts of the tree holding a live shape are visited.
+     * @param tick the time elapsed in the animation
+     * @param live the array to write the positions of the live shapes into, in declaration order
+     * @return the number of live shapes
+     */
+    private int liveAt(double tick, int[] live) {
+      int lo = 0;
+      int hi = starts.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (starts[mid] <= tick) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      int found = lo == 0 ? 0 : collect(1, 0, starts.length, lo, tick, live, 0);
+      if (found <= live.length) {
+        Arrays.sort(live, 0, found);
+      }
+      return found;
+    }
+
+    /**
+     * A method to collect the shapes under a node that have started by the given limit and are
+     * still running at the given tick. Shapes beyond the end of the array are only counted.
+     * @param node the index of the node
+     * @param lo the first position covered by the node
+     * @param hi the position after the last one covered by the node
+     * @param limit the number of leading positions whose lifetimes have started
+     * @param tick the time elapsed in the animation
+     * @param live the array to collect the positions of live shapes into
+     * @param found the number of live shapes collected so far
+     * @return the number of live shapes collected after visiting this node
+     */
+    private int collect(int node, int lo, int hi, int limit, double tick, int[] live,
+                        int found) {
+      if (lo >= limit || maxEnd[node] < tick) {
+        return found;
+      }
+      if (hi - lo == 1) {
+        if (found < live.length) {
+          live[found] = handles[lo];
+        }
+        return found + 1;
+      }
+      int mid = (lo + hi) >>> 1;
+      found = collect(2 * node, lo, mid, limit, tick, live, found);
+      return collect(2 * node + 1, mid, hi, limit, tick, live, found);
+    }
+  }
+}
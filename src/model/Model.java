@@ -1,33 +1,53 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
 import java.util.LinkedHashMap;
 
 import cs5004.animator.util.AnimationBuilder;
 
 /**
- * A class to represent an animation consisting of various shapes.
+ * A class to represent an animation consisting of various shapes. Each shape is given a handle,
+ * its position in the order shapes were added, when it is added, and everything the animation
+ * holds for a shape is stored in arrays indexed by that handle. Shape ids are only looked up at the
+ * boundary of the model.
  */
 public class Model implements IModel {
-  private Map<String, IShape> animation;
-  private Map<String, IShape> animationsCopy;
-  private Map<String, List<ITransformation>> transformations;
+  private Map<String, Integer> handles;
+  private String[] ids;
+  private IShape[] animation;
+  private IShape[] animationsCopy;
+  private List<List<ITransformation>> transformations;
+  private ShapeTimeline[] timelines;
+  private int count;
+  private LifetimeIndex lifetimes;
+  private ParallelEvaluator parallel;
   private Frame frame;
+  private int finalTick;
 
   /**
-   * A method to construct a model that is initialized to an empty hashmap to store shapes, another
-   * hashmap to store copies of the shape, a hashmap to store transformations performed on a shape,
-   * and a null frame.
+   * A method to construct a model that is initialized to a hashmap from shape id to handle, empty
+   * arrays to store the ids, the shapes, copies of the shapes, the transformations performed on
+   * each shape and those transformations indexed by type and start time, an index of the lifetimes
+   * of the shapes, sequential evaluation of frames, and a null frame.
    */
   public Model() {
-    this.animation = new LinkedHashMap<>();
-    this.animationsCopy = new LinkedHashMap<>();
-    this.transformations = new LinkedHashMap<>();
+    this.handles = new HashMap<>();
+    this.ids = new String[16];
+    this.animation = new IShape[16];
+    this.animationsCopy = new IShape[16];
+    this.transformations = new ArrayList<>();
+    this.timelines = new ShapeTimeline[16];
+    this.count = 0;
+    this.lifetimes = new LifetimeIndex();
+    this.parallel = new ParallelEvaluator();
     this.frame = null;
+    this.finalTick = 0;
   }
 
   /**
@@ -68,41 +88,89 @@ public class Model implements IModel {
       shape.setID(id);
       shape.appears(0);
       shape.disappears(0);
-      animation.put(id, shape.copy());
-      animationsCopy.put(id, shape.copy());
-      transformations.put(id, new ArrayList<>());
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, count * 2);
+        animation = Arrays.copyOf(animation, count * 2);
+        animationsCopy = Arrays.copyOf(animationsCopy, count * 2);
+        timelines = Arrays.copyOf(timelines, count * 2);
+      }
+      handles.put(id, count);
+      ids[count] = id;
+      animation[count] = shape.copy();
+      animationsCopy[count] = shape.copy();
+      transformations.add(new ArrayList<ITransformation>());
+      timelines[count] = new ShapeTimeline();
+      lifetimes.add();
+      count++;
     }
   }
 
   /**
-   * A method to add a transformation to a shape with the specified id.
+   * A method to add a transformation to a shape with the specified id. The lifetime of the shape,
+   * from the start of its first transformation to the end of its last, grows to cover the new
+   * transformation.
    * @param id a string identifier for a shape
    * @param t a transformation object to add to a shape
+   * @throws IllegalArgumentException when the transformation is null, no shape has the given id,
+   *          or the transformation overlaps another of its type on the same shape
    */
   @Override
   public void addTransformation(String id, ITransformation t) {
     if (t == null) {
       throw new IllegalArgumentException("Transformation cannot be null");
     }
-    if (isUnique(id)) {
+    Integer handle = id == null ? null : handles.get(id);
+    if (handle == null) {
       throw new IllegalArgumentException("No shape exists with given id");
     }
-    for (Map.Entry<String, IShape> e : animationsCopy.entrySet()) {
-      if (e.getKey() == id) {
-        List<ITransformation> shapeTransformations = transformations.get(e.getKey());
-        for (ITransformation trans : shapeTransformations) {
-          if (trans.getType() == t.getType()) {
-            if ((t.getStartTime() > trans.getStartTime() && t.getStartTime() < trans.getEndTime())
-                    || (t.getEndTime() > trans.getStartTime()
-                    && t.getEndTime() < trans.getEndTime())) {
-              throw new IllegalArgumentException("Two transformations of the same type can't occur"
-                      + " at the same time");
-            }
-          }
-        }
-      }
+    addTransformation(handle, t);
+  }
+
+  /**
+   * A method to add a transformation to the shape with the given handle.
+   * @param handle the position of the shape in the order shapes were added
+   * @param t a transformation object to add to the shape
+   * @throws IllegalArgumentException when the transformation overlaps another of its type on the
+   *          same shape
+   */
+  private void addTransformation(int handle, ITransformation t) {
+    if (timelines[handle].overlaps(t)) {
+      throw new IllegalArgumentException("Two transformations of the same type can't occur"
+              + " at the same time");
     }
-    transformations.get(id).add(t);
+    transformations.get(handle).add(t);
+    timelines[handle].add(t);
+    extendLifetime(handle, t.getStartTime(), t.getEndTime());
+  }
+
+  /**
+   * A method to widen the lifetime of a shape, and the length of the animation, to cover the given
+   * interval. This is also used for motions that leave a shape unchanged, which keep the shape on
+   * screen without adding any transformation.
+   * @param handle the position of the shape in the order shapes were added
+   * @param start the first tick of the interval
+   * @param end the last tick of the interval
+   */
+  private void extendLifetime(int handle, int start, int end) {
+    ShapeTimeline timeline = timelines[handle];
+    timeline.extend(start, end);
+    lifetimes.set(handle, timeline.getFirstTick(), timeline.getLastTick());
+    if (timeline.getFirstTick() >= 0) {
+      setLifetime(animation[handle], timeline.getFirstTick(), timeline.getLastTick());
+      setLifetime(animationsCopy[handle], timeline.getFirstTick(), timeline.getLastTick());
+    }
+    finalTick = Math.max(finalTick, end);
+  }
+
+  /**
+   * A method to set the tick a shape appears at and the tick it disappears at.
+   * @param shape the shape
+   * @param first the tick the shape appears at
+   * @param last the tick the shape disappears at
+   */
+  private static void setLifetime(IShape shape, int first, int last) {
+    shape.appears(first);
+    shape.disappears(last);
   }
 
   /**
@@ -120,17 +188,32 @@ public class Model implements IModel {
     else if (id.equals("")) {
       throw new IllegalArgumentException("Invalid ID - is empty");
     }
-    else if (animationsCopy.containsKey(id)) {
-      return animationsCopy.get(id);
+    Integer handle = handles.get(id);
+    if (handle != null) {
+      return animationsCopy[handle];
     }
     throw new NoSuchElementException("No such shape found under given ID.");
   }
 
+  /**
+   * A method to find the handle of the shape with the given id.
+   * @param id a string identifier for the desired shape
+   * @return the position of the shape in the order shapes were added
+   * @throws NoSuchElementException when no shape has the given id
+   */
+  private int handleOf(String id) {
+    Integer handle = handles.get(id);
+    if (handle == null) {
+      throw new NoSuchElementException("No such shape found under given ID.");
+    }
+    return handle;
+  }
+
   /**
    * A class to build an animation model based off of information received from AnimationReader.
    */
   public static final class Builder implements AnimationBuilder<IModel> {
-    private IModel model = new Model();
+    private Model model = new Model();
 
     /**
      * Constructs a final document.
@@ -204,36 +287,87 @@ public class Model implements IModel {
     public AnimationBuilder<IModel> addMotion(String name, int t1, int x1, int y1, int w1, int h1,
                                               int r1, int g1, int b1, int t2, int x2, int y2,
                                               int w2, int h2, int r2, int g2, int b2) {
-      IShape s = model.getShape(name);
-      int offsetX = model.getFrame().getX();
-      int offsetY = model.getFrame().getY();
-      if (model.getShape(name).getLocation().getX() == 0
-              && model.getShape(name).getLocation().getX() == 0
-              && model.getShape(name).getHeight() == 1
-              && model.getShape(name).getWidth() == 1 && model.getShape(name).getR() == 0
-              && model.getShape(name).getB() == 0 && model.getShape(name).getG() == 0) {
-        model.getAnimationsCopy().get(name).getLocation().movePoint(x1 - offsetX,
-                y1 - offsetY);
-        model.getAnimationsCopy().get(name).setColor(r1, g1, b1);
-        model.getAnimationsCopy().get(name).setHeight(h1);
-        model.getAnimationsCopy().get(name).setWidth(w1);
-        model.getAnimation().get(name).getLocation().movePoint(x1 - offsetX,
-                y1 - offsetY);
-        model.getAnimation().get(name).setColor(r1, g1, b1);
-        model.getAnimation().get(name).setHeight(h1);
-        model.getAnimation().get(name).setWidth(w1);
+      addMotion(model.handleOf(name), name, model.frame.getX(), model.frame.getY(),
+              t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2);
+      return this;
+    }
+
+    /**
+     * Adds several transformations of the same shape to the growing document, looking the shape
+     * and the frame offset up once for all of them.
+     *
+     * @param name    The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param count   The number of transformations to add
+     * @param motions The values of the transformations, sixteen per transformation
+     * @param offset  The position in the array of the first value of the first transformation
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when the count is negative or the array is too short
+     */
+    @Override
+    public AnimationBuilder<IModel> addMotions(String name, int count, int[] motions,
+                                               int offset) {
+      if (count < 0 || offset < 0 || offset > motions.length - 16L * count) {
+        throw new IllegalArgumentException("The motions do not fit in the given array");
+      }
+      int handle = model.handleOf(name);
+      int offsetX = model.frame.getX();
+      int offsetY = model.frame.getY();
+      for (int i = offset; i < offset + 16 * count; i += 16) {
+        addMotion(handle, name, offsetX, offsetY, motions[i], motions[i + 1], motions[i + 2],
+                motions[i + 3], motions[i + 4], motions[i + 5], motions[i + 6], motions[i + 7],
+                motions[i + 8], motions[i + 9], motions[i + 10], motions[i + 11],
+                motions[i + 12], motions[i + 13], motions[i + 14], motions[i + 15]);
+      }
+      return this;
+    }
+
+    /**
+     * A method to add a transformation to a shape whose handle and frame offset are known. The
+     * remaining arguments are those of {@link #addMotion(String, int, int, int, int, int, int, int,
+     * int, int, int, int, int, int, int, int, int)}.
+     * @param handle the handle of the shape
+     * @param name the id of the shape
+     * @param offsetX the x-coordinate of the frame
+     * @param offsetY the y-coordinate of the frame
+     */
+    private void addMotion(int handle, String name, int offsetX, int offsetY,
+                           int t1, int x1, int y1, int w1, int h1, int r1, int g1, int b1,
+                           int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2) {
+      IShape s = model.animationsCopy[handle];
+      if (s.getLocation().getX() == 0 && s.getLocation().getY() == 0 && s.getHeight() == 1
+              && s.getWidth() == 1 && s.getR() == 0 && s.getB() == 0 && s.getG() == 0) {
+        setStart(s, x1 - offsetX, y1 - offsetY, w1, h1, r1, g1, b1);
+        setStart(model.animation[handle], x1 - offsetX, y1 - offsetY, w1, h1, r1, g1, b1);
       }
       if (x1 != x2 || y1 != y2) {
-        model.addTransformation(name, new Move(t1, t2, new Point(x1 - offsetX, y1 - offsetY),
-                new Point(x2 - offsetX, y2 - offsetY), s.copy()));
+        model.addTransformation(handle, new Move(t1, t2, new Point(x1 - offsetX, y1 - offsetY),
+                new Point(x2 - offsetX, y2 - offsetY), name));
       }
       if (r1 != r2 || g1 != g2 || b1 != b2) {
-        model.addTransformation(name, new ChangeColor(t1, t2, r1, g1, b1, r2, g2, b2, s.copy()));
+        model.addTransformation(handle, new ChangeColor(t1, t2, r1, g1, b1, r2, g2, b2, name));
       }
       if (h1 != h2 || w1 != w2) {
-        model.addTransformation(name, new Resize(t1, t2, h1, w1, h2, w2, s.copy()));
+        model.addTransformation(handle, new Resize(t1, t2, h1, w1, h2, w2, name));
       }
-      return this;
+      model.extendLifetime(handle, t1, t2);
+    }
+
+    /**
+     * A method to give a shape the state it starts its first motion in.
+     * @param shape the shape
+     * @param x the x-coordinate of the shape, relative to the frame
+     * @param y the y-coordinate of the shape, relative to the frame
+     * @param w the width of the shape
+     * @param h the height of the shape
+     * @param r the red color-value of the shape
+     * @param g the green color-value of the shape
+     * @param b the blue color-value of the shape
+     */
+    private static void setStart(IShape shape, int x, int y, int w, int h, int r, int g, int b) {
+      shape.getLocation().movePoint(x, y);
+      shape.setColor(r, g, b);
+      shape.setHeight(h);
+      shape.setWidth(w);
     }
   }
 
@@ -243,30 +377,18 @@ public class Model implements IModel {
    * @return an int value.
    */
   private boolean isUnique(String id) {
-    return !animation.containsKey(id);
+    return !handles.containsKey(id);
   }
 
   /**
-   * A method to revert all shapes in an animation back to their original state.
-   * @return a linkedHashMap with each shape reverted back to its original form
+   * A method to determine the last tick in an animation. The value is kept up to date as
+   * transformations are added rather than recomputed on every call.
+   * @return an integer representing last tick in an animation, or 0 when it has no
+   *          transformations
    */
+  @Override
   public int getFinalTick() {
-    Map<String, List<ITransformation>> sorted = new LinkedHashMap<>();
-    List<Integer> newList = new ArrayList();
-    List<Integer> listOfEnds = new ArrayList();
-    for (Map.Entry<String, List<ITransformation>> e : transformations.entrySet()) {
-      listOfEnds = e.getValue().stream().map(ITransformation::getEndTime)
-              .collect(Collectors.toList());
-      newList.addAll(listOfEnds);
-    }
-    int i;
-    int max = newList.get(0);
-    for (i = 1; i < newList.size(); i++) {
-      if (newList.get(i) > max) {
-        max = newList.get(i);
-      }
-    }
-    return max;
+    return finalTick;
   }
 
   /**
@@ -277,17 +399,17 @@ public class Model implements IModel {
   public String toString() {
     StringBuilder animationString = new StringBuilder("Shapes:");
     boolean first = true;
-    for (Map.Entry<String, IShape> e: animationsCopy.entrySet()) {
+    for (int i = 0; i < count; i++) {
       if (!first) {
-        animationString.append("\n\n").append(e.getValue().toString());
+        animationString.append("\n\n").append(animationsCopy[i].toString());
       } else {
-        animationString.append("\n").append(e.getValue().toString());
+        animationString.append("\n").append(animationsCopy[i].toString());
         first = false;
       }
     }
     animationString.append("\n");
-    for (Map.Entry<String, List<ITransformation>> a : transformations.entrySet()) {
-      for (ITransformation transformation : a.getValue()) {
+    for (List<ITransformation> shapeTransformations : transformations) {
+      for (ITransformation transformation : shapeTransformations) {
         animationString.append("\n").append(transformation.toString());
       }
     }
@@ -296,9 +418,11 @@ public class Model implements IModel {
 
   /**
    * A method to get current shapes in an animation in their time appropriate state at a specific
-   * 'tick' in time.
+   * 'tick' in time. Only shapes alive at the tick, from the start of their first transformation to
+   * the end of their last, are updated and returned; shapes without transformations are always
+   * alive.
    * @param tick a desired time for which to retrieve the current shapes in the animation.
-   * @return a list of shapes in their time appropriate state
+   * @return a list of the live shapes in their time appropriate state, in the order they were added
    */
   @Override
   public List<IShape> getShapesAtTick(int tick) {
@@ -308,15 +432,19 @@ public class Model implements IModel {
     if (tick == 0) {
       resetAnimation();
     }
-    ArrayList<IShape> shapesAtTick = new ArrayList<>();
-
-    for (Map.Entry<String, IShape> e : animationsCopy.entrySet()) {
-      List<ITransformation> listAtTick = transformations.get(e.getKey());
-      for (ITransformation t : listAtTick) {
-        t.getTransformationsAtTick(e.getValue(), tick);
+    final int[] live = lifetimes.liveAt(tick);
+    final IShape[] slots = new IShape[live.length];
+    parallel.run(live.length, new ParallelEvaluator.Chunk() {
+      @Override
+      public void evaluate(int from, int to) {
+        for (int i = from; i < to; i++) {
+          IShape shape = animationsCopy[live[i]];
+          timelines[live[i]].apply(shape, tick);
+          slots[i] = shape;
+        }
       }
-      shapesAtTick.add(e.getValue());
-    }
+    });
+    List<IShape> shapesAtTick = new ArrayList<>(Arrays.asList(slots));
     if (tick == getFinalTick()) {
       resetAnimation();
     }
@@ -324,12 +452,192 @@ public class Model implements IModel {
   }
 
   /**
-   * A method to return the animationsCopy hashmap.
+   * A method to compute the state of every shape at a given tick from its original state and
+   * transformations alone. No shape held by the animation is changed, so frames may be evaluated
+   * in any order and from several threads at once.
+   * @param tick the tick in time to evaluate the animation at
+   * @return an immutable snapshot of every live shape at the given tick
+   * @throws IllegalArgumentException when the tick is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(int tick) {
+    return evaluate((double) tick);
+  }
+
+  /**
+   * A method to compute the state of every shape at a given time from its original state and
+   * transformations alone. No shape held by the animation is changed, so frames may be evaluated
+   * in any order and from several threads at once. As with {@link #getShapesAtTick}, only shapes
+   * alive at the given time are included.
+   * @param time the time to evaluate the animation at, which may fall between ticks
+   * @return an immutable snapshot of every live shape at the given time
+   * @throws IllegalArgumentException when the time is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(double time) {
+    if (time < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    final int[] live = lifetimes.liveAt(time);
+    int size = live.length;
+    final String[] frameIds = new String[size];
+    final ShapeType[] types = new ShapeType[size];
+    final int[] values = new int[size * FrameSnapshot.FIELDS];
+    parallel.run(size, new ParallelEvaluator.Chunk() {
+      @Override
+      public void evaluate(int from, int to) {
+        IShape scratch = new Rectangle();
+        for (int i = from; i < to; i++) {
+          IShape original = animation[live[i]];
+          scratch.getLocation().movePoint(original.getLocation().getX(),
+                  original.getLocation().getY());
+          scratch.setWidth(original.getWidth());
+          scratch.setHeight(original.getHeight());
+          scratch.setColor(original.getR(), original.getG(), original.getB());
+          timelines[live[i]].applyAt(scratch, time);
+          frameIds[i] = ids[live[i]];
+          types[i] = original.getType();
+          int o = i * FrameSnapshot.FIELDS;
+          values[o] = scratch.getLocation().getX();
+          values[o + 1] = scratch.getLocation().getY();
+          values[o + 2] = scratch.getWidth();
+          values[o + 3] = scratch.getHeight();
+          values[o + 4] = scratch.getR();
+          values[o + 5] = scratch.getG();
+          values[o + 6] = scratch.getB();
+        }
+      }
+    });
+    return new FrameSnapshot(time, frameIds, types, values, size);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time.
+   * No shape held by the animation is changed.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @return an iterator over an immutable snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step) {
+    return frames(from, to, step, false);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * optionally writing every frame into the same buffers. No shape held by the animation is
+   * changed.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @param reuse whether to write every frame into the same buffers
+   * @return an iterator over a snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step, boolean reuse) {
+    final ShapeTimeline[] shapeTimelines = timelines;
+    final IShape[] originals = animation;
+    final IShape scratch = new Rectangle();
+    return new FrameIterator(lifetimes, from, to, step, reuse, ShapeTimeline.TRACKS) {
+      @Override
+      String idOf(int handle) {
+        return originals[handle].getID();
+      }
+
+      @Override
+      ShapeType typeOf(int handle) {
+        return originals[handle].getType();
+      }
+
+      @Override
+      void stateAt(int handle, double tick, int[] out, int offset, int[] hints, int hint) {
+        Model.stateAt(originals[handle], shapeTimelines[handle], scratch, tick, out, offset,
+                hints, hint);
+      }
+    };
+  }
+
+  /**
+   * A method to write the attributes of the shape with the given handle at a tick into an array,
+   * without changing any shape held by the animation.
+   * @param handle the position of the shape in the order shapes were added
+   * @param tick the time elapsed in the animation
+   * @param scratch a shape to compute the state in
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   * @param hints the lookup hints to start from, which are left where the lookups landed
+   * @param hint the index of the first hint of this shape
+   */
+  void stateAt(int handle, double tick, IShape scratch, int[] out, int offset, int[] hints,
+               int hint) {
+    stateAt(animation[handle], timelines[handle], scratch, tick, out, offset, hints, hint);
+  }
+
+  /**
+   * A method to bring the shape with the given handle to its state at a tick, as
+   * {@link #getShapesAtTick} does for every live shape.
+   * @param handle the position of the shape in the order shapes were added
+   * @param tick the time elapsed in the animation
+   * @return the shape in its state at the tick
+   */
+  IShape shapeAt(int handle, int tick) {
+    return timelines[handle].apply(animationsCopy[handle], tick);
+  }
+
+  /**
+   * A method to compute the state of a shape at a tick in a scratch shape, starting from its
+   * original state, and write it into an array.
+   * @param original the shape in its original state
+   * @param timeline the transformations of the shape
+   * @param scratch a shape to compute the state in
+   * @param tick the time elapsed in the animation
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   * @param hints the lookup hints to start from, which are left where the lookups landed
+   * @param hint the index of the first hint of this shape
+   */
+  private static void stateAt(IShape original, ShapeTimeline timeline, IShape scratch,
+                              double tick, int[] out, int offset, int[] hints, int hint) {
+    scratch.getLocation().movePoint(original.getLocation().getX(),
+            original.getLocation().getY());
+    scratch.setWidth(original.getWidth());
+    scratch.setHeight(original.getHeight());
+    scratch.setColor(original.getR(), original.getG(), original.getB());
+    timeline.applyFrom(scratch, tick, hints, hint);
+    out[offset] = scratch.getLocation().getX();
+    out[offset + 1] = scratch.getLocation().getY();
+    out[offset + 2] = scratch.getWidth();
+    out[offset + 3] = scratch.getHeight();
+    out[offset + 4] = scratch.getR();
+    out[offset + 5] = scratch.getG();
+    out[offset + 6] = scratch.getB();
+  }
+
+  /**
+   * A method to evaluate frames in parallel once they hold at least the given number of shapes.
+   * Each shape is only ever touched by the chunk that holds it, so the chunks share nothing but the
+   * result slots they fill.
+   * @param threshold the smallest number of live shapes in a frame to evaluate in parallel
+   * @throws IllegalArgumentException when the threshold is less than 1
+   */
+  @Override
+  public void setParallelThreshold(int threshold) {
+    parallel.setThreshold(threshold);
+  }
+
+  /**
+   * A method to return the animationsCopy hashmap. The hashmap is created on every call, but holds
+   * the shapes of the animation themselves.
    * @return a hashmap with shape id as the key and a shape object as the value
    */
   @Override
   public Map<String, IShape> getAnimationsCopy() {
-    return this.animationsCopy;
+    return toMap(animationsCopy);
   }
 
   /**
@@ -339,37 +647,55 @@ public class Model implements IModel {
   @Override
   public Map<String, IShape> resetAnimation() {
     Map<String, IShape> copy = new LinkedHashMap<>();
-    for (Map.Entry<String, IShape> e : animationsCopy.entrySet()) {
-      String id = e.getKey();
-      IShape shape = animation.get(id);
+    for (int i = 0; i < count; i++) {
+      IShape shape = animation[i];
       if (shape != null && shape.getLocation() != null) {
-        e.getValue().getLocation().movePoint(shape.getLocation().getX(),
+        animationsCopy[i].getLocation().movePoint(shape.getLocation().getX(),
                 shape.getLocation().getY());
-        e.getValue().setWidth(shape.getWidth());
-        e.getValue().setHeight(shape.getHeight());
-        e.getValue().setColor(shape.getR(), shape.getG(), shape.getB());
+        animationsCopy[i].setWidth(shape.getWidth());
+        animationsCopy[i].setHeight(shape.getHeight());
+        animationsCopy[i].setColor(shape.getR(), shape.getG(), shape.getB());
       }
     }
     return copy;
   }
 
   /**
-   * A method to return the linkedHashMap for animation.
+   * A method to return the linkedHashMap for animation. The linkedHashMap is created on every call,
+   * but holds the original shapes of the animation themselves.
    * @return a linkedHashMap for animation
    */
   @Override
   public Map<String, IShape> getAnimation() {
-    return this.animation;
+    return toMap(animation);
   }
 
   /**
-   * A method to return the transformations hashmap.
+   * A method to return the transformations hashmap. The hashmap is created on every call, but
+   * holds the lists of transformations of the animation themselves.
    * @return a hashmap with shape id as the key and a list of transformations for that shape as the
    *          value
    */
   @Override
   public Map<String, List<ITransformation>> getTransformations() {
-    return this.transformations;
+    Map<String, List<ITransformation>> map = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      map.put(ids[i], transformations.get(i));
+    }
+    return map;
+  }
+
+  /**
+   * A method to key the shapes in an array by their ids, in the order they were added.
+   * @param shapes the shapes indexed by handle
+   * @return a linkedHashMap with shape id as the key and a shape object as the value
+   */
+  private Map<String, IShape> toMap(IShape[] shapes) {
+    Map<String, IShape> map = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      map.put(ids[i], shapes[i]);
+    }
+    return map;
   }
 
   /**
@@ -6,7 +6,6 @@ package model;
 public class Move extends AbstractTransformation {
   Point locationStart;
   Point locationEnd;
-  IShape s;
 
   /**
    * A method to construct a Move transformation initialized to a given start time, end time, start
@@ -19,10 +18,23 @@ public class Move extends AbstractTransformation {
    * @param shape shape to perform the transformation on
    */
   public Move(int start, int end, Point locationStart, Point locationEnd, IShape shape) {
-    super(start, end, TransformationType.MOVE);
+    this(start, end, locationStart, locationEnd, shape.getID());
+  }
+
+  /**
+   * A method to construct a Move transformation initialized to a given start time, end time, start
+   * location represented as a Point object, end location represented os a Point object, and id of
+   * the shape to perform the transformation on.
+   * @param start integer start time for transformation
+   * @param end integer end time for transformation
+   * @param locationStart Point start location for transformation
+   * @param locationEnd Point end location for transformation
+   * @param shapeID the id of the shape to perform the transformation on
+   */
+  public Move(int start, int end, Point locationStart, Point locationEnd, String shapeID) {
+    super(start, end, TransformationType.MOVE, shapeID);
     this.locationStart = locationStart;
     this.locationEnd = locationEnd;
-    this.s = shape;
   }
 
   /**
@@ -76,7 +88,7 @@ public class Move extends AbstractTransformation {
   @Override
   public String toString() {
     return String.format("Shape %s moves from (%d, %d) to (%d, %d) from t = %d to t = %d",
-            s.getID(), locationStart.getX(), locationStart.getY(), locationEnd.getX(),
+            shapeID, locationStart.getX(), locationStart.getY(), locationEnd.getX(),
             locationEnd.getY(), start, end);
   }
 }
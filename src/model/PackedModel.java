@@ -0,0 +1,760 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import cs5004.animator.util.AnimationBuilder;
+
+/**
+ * A class to represent an animation whose motions are stored as keyframes in packed primitive
+ * arrays instead of as separate transformation objects. Each shape's keyframes are held in a
+ * {@link PackedTrack}, and frames are interpolated straight from those arrays, which keeps very
+ * large animations small in memory and quick to play back. Transformation objects are only created
+ * when {@link #getTransformations()} is called.
+ */
+public class PackedModel implements IModel {
+  private Map<String, Integer> handles;
+  private String[] ids;
+  private IShape[] animation;
+  private IShape[] animationsCopy;
+  private PackedTrack[] tracks;
+  private LifetimeIndex lifetimes;
+  private ParallelEvaluator parallel;
+  private int count;
+  private Frame frame;
+  private int finalTick;
+  private final int[] scratch;
+
+  /**
+   * A method to construct a packed model that is initialized to an empty hashmap to store shapes,
+   * another hashmap to store copies of the shapes, no keyframes or lifetimes, sequential evaluation
+   * of frames, and a null frame.
+   */
+  public PackedModel() {
+    this.handles = new HashMap<>();
+    this.ids = new String[16];
+    this.animation = new IShape[16];
+    this.animationsCopy = new IShape[16];
+    this.tracks = new PackedTrack[16];
+    this.lifetimes = new LifetimeIndex();
+    this.parallel = new ParallelEvaluator();
+    this.count = 0;
+    this.frame = null;
+    this.finalTick = 0;
+    this.scratch = new int[2 * FrameSnapshot.FIELDS];
+  }
+
+  /**
+   * A method to create a frame for a model to represent an animation.
+   * @param x the left most x coordinate for the frame
+   * @param y the top most y coordinate for the frame
+   * @param width the width of the frame
+   * @param height the height of the frame
+   */
+  @Override
+  public void createFrame(int x, int y, int width, int height) {
+    this.frame = new Frame(x, y, width, height);
+  }
+
+  /**
+   * A method to add a shape object to an animation.
+   * @param id the identifier for the shape
+   * @param shape a shape object
+   * @throws IllegalArgumentException when question is null, id is null, id is an empty string,
+   *          id is not unique, appear or disappear time is less than 0, or shape disappears
+   *          before it appears
+   */
+  @Override
+  public void addShape(String id, IShape shape) throws IllegalArgumentException {
+    if (shape == null) {
+      throw new IllegalArgumentException("The question cannot be null!");
+    }
+    else if (id == null) {
+      throw new IllegalArgumentException("The identifier cannot be null!");
+    }
+    else if (id.equals("")) {
+      throw new IllegalArgumentException("Invalid ID - is empty");
+    }
+    else if (handles.containsKey(id)) {
+      throw new IllegalArgumentException("ID must be unique!");
+    }
+    shape.setID(id);
+    shape.appears(0);
+    shape.disappears(0);
+    if (count == ids.length) {
+      ids = Arrays.copyOf(ids, count * 2);
+      animation = Arrays.copyOf(animation, count * 2);
+      animationsCopy = Arrays.copyOf(animationsCopy, count * 2);
+      tracks = Arrays.copyOf(tracks, count * 2);
+    }
+    ids[count] = id;
+    animation[count] = shape.copy();
+    animationsCopy[count] = shape.copy();
+    tracks[count] = new PackedTrack();
+    handles.put(id, count);
+    lifetimes.add();
+    count++;
+  }
+
+  /**
+   * A method to add a motion to the shape with the specified id. The motions of a shape must be
+   * added in order of their start time.
+   * @param id a string identifier for a shape
+   * @param t1 the start time of the motion
+   * @param x1 the initial x-position of the shape
+   * @param y1 the initial y-position of the shape
+   * @param w1 the initial width of the shape
+   * @param h1 the initial height of the shape
+   * @param r1 the initial red color-value of the shape
+   * @param g1 the initial green color-value of the shape
+   * @param b1 the initial blue color-value of the shape
+   * @param t2 the end time of the motion
+   * @param x2 the final x-position of the shape
+   * @param y2 the final y-position of the shape
+   * @param w2 the final width of the shape
+   * @param h2 the final height of the shape
+   * @param r2 the final red color-value of the shape
+   * @param g2 the final green color-value of the shape
+   * @param b2 the final blue color-value of the shape
+   * @throws IllegalArgumentException when no shape exists with the given id, or the motion starts
+   *          before the previous motion of the shape ends
+   */
+  public void addMotion(String id, int t1, int x1, int y1, int w1, int h1, int r1, int g1,
+                        int b1, int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2) {
+    addMotion(handleOf(id), t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2);
+  }
+
+  /**
+   * A method to add a motion to the shape with the given handle.
+   * @param handle the position of the shape in declaration order
+   * @param t1 the start time of the motion
+   * @param x1 the initial x-position of the shape
+   * @param y1 the initial y-position of the shape
+   * @param w1 the initial width of the shape
+   * @param h1 the initial height of the shape
+   * @param r1 the initial red color-value of the shape
+   * @param g1 the initial green color-value of the shape
+   * @param b1 the initial blue color-value of the shape
+   * @param t2 the end time of the motion
+   * @param x2 the final x-position of the shape
+   * @param y2 the final y-position of the shape
+   * @param w2 the final width of the shape
+   * @param h2 the final height of the shape
+   * @param r2 the final red color-value of the shape
+   * @param g2 the final green color-value of the shape
+   * @param b2 the final blue color-value of the shape
+   * @throws IllegalArgumentException when the motion starts before the previous motion of the
+   *          shape ends
+   */
+  private void addMotion(int handle, int t1, int x1, int y1, int w1, int h1, int r1, int g1,
+                         int b1, int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2) {
+    tracks[handle].addMotion(t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2);
+    updateLifetime(handle);
+  }
+
+  /**
+   * A method to add a transformation to a shape with the specified id. The transformation is
+   * stored as a motion in which only the attributes it changes vary. Transformations of a shape
+   * must be added in order of their start time, although transformations of different types over
+   * the same interval may follow one another, as they do when a motion changes several attributes.
+   * @param id a string identifier for a shape
+   * @param t a transformation object to add to a shape
+   * @throws IllegalArgumentException when the transformation is null or not a move, resize or
+   *          color change, no shape exists with the given id, or the transformation starts before
+   *          the previous motion of the shape ends
+   */
+  @Override
+  public void addTransformation(String id, ITransformation t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transformation cannot be null");
+    }
+    int handle = handleOf(id);
+    int first;
+    int count;
+    int s0;
+    int s1;
+    int s2 = 0;
+    int e0;
+    int e1;
+    int e2 = 0;
+    if (t instanceof Move) {
+      Move move = (Move) t;
+      first = 0;
+      count = 2;
+      s0 = move.getLocationStart().getX();
+      s1 = move.getLocationStart().getY();
+      e0 = move.getLocationEnd().getX();
+      e1 = move.getLocationEnd().getY();
+    }
+    else if (t instanceof Resize) {
+      Resize resize = (Resize) t;
+      first = 2;
+      count = 2;
+      s0 = resize.getStartWidth();
+      s1 = resize.getStartHeight();
+      e0 = resize.getEndWidth();
+      e1 = resize.getEndHeight();
+    }
+    else if (t instanceof ChangeColor) {
+      ChangeColor color = (ChangeColor) t;
+      first = 4;
+      count = 3;
+      s0 = color.getStartR();
+      s1 = color.getStartG();
+      s2 = color.getStartB();
+      e0 = color.getEndR();
+      e1 = color.getEndG();
+      e2 = color.getEndB();
+    }
+    else {
+      throw new IllegalArgumentException("Unsupported transformation type");
+    }
+    int t1 = t.getStartTime();
+    int t2 = t.getEndTime();
+    PackedTrack track = tracks[handle];
+    if (!track.mergeIntoLast(t1, t2, first, count, s0, s1, s2, e0, e1, e2)) {
+      int[] v = scratch;
+      stateAt(handle, t1, v, 0, -1);
+      System.arraycopy(v, 0, v, FrameSnapshot.FIELDS, FrameSnapshot.FIELDS);
+      v[first] = s0;
+      v[first + 1] = s1;
+      v[FrameSnapshot.FIELDS + first] = e0;
+      v[FrameSnapshot.FIELDS + first + 1] = e1;
+      if (count == 3) {
+        v[first + 2] = s2;
+        v[FrameSnapshot.FIELDS + first + 2] = e2;
+      }
+      track.addMotion(t1, v[0], v[1], v[2], v[3], v[4], v[5], v[6],
+              t2, v[7], v[8], v[9], v[10], v[11], v[12], v[13]);
+    }
+    updateLifetime(handle);
+  }
+
+  /**
+   * A method to get a shape with a given identifier from the current animation.
+   * @param id a string identifier for the desired shape
+   * @return the shape with the given identifier
+   * @throws IllegalArgumentException when the id is null or an empty string
+   * @throws NoSuchElementException when the element with the given id cannot be found in the list
+   */
+  @Override
+  public IShape getShape(String id) throws IllegalArgumentException, NoSuchElementException {
+    if (id == null) {
+      throw new IllegalArgumentException("The identifier cannot be null!");
+    }
+    else if (id.equals("")) {
+      throw new IllegalArgumentException("Invalid ID - is empty");
+    }
+    Integer handle = handles.get(id);
+    if (handle != null) {
+      return animationsCopy[handle];
+    }
+    throw new NoSuchElementException("No such shape found under given ID.");
+  }
+
+  /**
+   * A method to get current shapes in an animation in their time appropriate state at a specific
+   * 'tick' in time. Only shapes alive at the tick, from the start of their first motion to the end
+   * of their last, are updated and returned; shapes without motions are always alive.
+   * @param tick a desired time for which to retrieve the current shapes in the animation.
+   * @return a list of the live shapes in their time appropriate state, in the order they were added
+   */
+  @Override
+  public List<IShape> getShapesAtTick(int tick) {
+    if (tick < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    final int[] live = lifetimes.liveAt(tick);
+    final IShape[] slots = new IShape[live.length];
+    parallel.run(live.length, new ParallelEvaluator.Chunk() {
+      @Override
+      public void evaluate(int from, int to) {
+        int[] state = new int[FrameSnapshot.FIELDS];
+        for (int k = from; k < to; k++) {
+          int i = live[k];
+          PackedTrack track = tracks[i];
+          if (track.size() == 0 || tick < track.timeAt(0)) {
+            stateAt(i, tick, state, 0, -1);
+          }
+          else {
+            track.stateAt(tick, state, 0);
+          }
+          IShape s = animationsCopy[i];
+          s.getLocation().movePoint(state[0], state[1]);
+          s.setWidth(state[2]);
+          s.setHeight(state[3]);
+          s.setColor(state[4], state[5], state[6]);
+          slots[k] = s;
+        }
+      }
+    });
+    List<IShape> shapesAtTick = new ArrayList<>(Arrays.asList(slots));
+    return shapesAtTick;
+  }
+
+  /**
+   * A method to compute the state of every shape at a given tick straight from its keyframes,
+   * without changing any shape held by the animation.
+   * @param tick the tick in time to evaluate the animation at
+   * @return an immutable snapshot of every live shape at the given tick
+   * @throws IllegalArgumentException when the tick is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(int tick) {
+    return evaluate((double) tick);
+  }
+
+  /**
+   * A method to compute the state of every shape at a given time straight from its keyframes,
+   * without changing any shape held by the animation. As with {@link #getShapesAtTick}, only
+   * shapes alive at the given time are included.
+   * @param time the time to evaluate the animation at, which may fall between ticks
+   * @return an immutable snapshot of every live shape at the given time
+   * @throws IllegalArgumentException when the time is negative
+   */
+  @Override
+  public FrameSnapshot evaluate(double time) {
+    if (time < 0) {
+      throw new IllegalArgumentException("Tick cannot be negative");
+    }
+    final int[] live = lifetimes.liveAt(time);
+    final String[] frameIds = new String[live.length];
+    final ShapeType[] types = new ShapeType[live.length];
+    final int[] values = new int[live.length * FrameSnapshot.FIELDS];
+    parallel.run(live.length, new ParallelEvaluator.Chunk() {
+      @Override
+      public void evaluate(int from, int to) {
+        for (int i = from; i < to; i++) {
+          frameIds[i] = ids[live[i]];
+          types[i] = animation[live[i]].getType();
+          stateAt(live[i], time, values, i * FrameSnapshot.FIELDS, -1);
+        }
+      }
+    });
+    return new FrameSnapshot(time, frameIds, types, values, live.length);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * straight from the keyframes.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @return an iterator over an immutable snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step) {
+    return frames(from, to, step, false);
+  }
+
+  /**
+   * A method to evaluate the frames of the animation over a range of ticks, one frame at a time,
+   * straight from the keyframes, optionally writing every frame into the same buffers.
+   * @param from the first tick to evaluate
+   * @param to the tick to stop before
+   * @param step the number of ticks between frames
+   * @param reuse whether to write every frame into the same buffers
+   * @return an iterator over a snapshot of every shape alive at each tick
+   * @throws IllegalArgumentException when from is negative, to is before from, or step is less
+   *          than 1
+   */
+  @Override
+  public Iterator<FrameSnapshot> frames(int from, int to, int step, boolean reuse) {
+    final ShapeType[] types = new ShapeType[count];
+    for (int i = 0; i < count; i++) {
+      types[i] = animation[i].getType();
+    }
+    return new FrameIterator(lifetimes, from, to, step, reuse, 1) {
+      @Override
+      String idOf(int handle) {
+        return ids[handle];
+      }
+
+      @Override
+      ShapeType typeOf(int handle) {
+        return types[handle];
+      }
+
+      @Override
+      void stateAt(int handle, double tick, int[] out, int offset, int[] hints, int hint) {
+        hints[hint] = PackedModel.this.stateAt(handle, tick, out, offset, hints[hint]);
+      }
+    };
+  }
+
+  /**
+   * A method to evaluate frames in parallel once they hold at least the given number of shapes.
+   * Each shape is only ever touched by the chunk that holds it, so the chunks share nothing but the
+   * result slots they fill.
+   * @param threshold the smallest number of live shapes in a frame to evaluate in parallel
+   * @throws IllegalArgumentException when the threshold is less than 1
+   */
+  @Override
+  public void setParallelThreshold(int threshold) {
+    parallel.setThreshold(threshold);
+  }
+
+  /**
+   * A method to return the animationsCopy hashmap. The hashmap is created on every call, but holds
+   * the shapes of the animation themselves.
+   * @return a hashmap with shape id as the key and a shape object as the value
+   */
+  @Override
+  public Map<String, IShape> getAnimationsCopy() {
+    return toMap(animationsCopy);
+  }
+
+  /**
+   * A method to return the transformations of every shape, created from its keyframes. A motion
+   * becomes a move, a color change and a resize, for whichever of those attributes it changes. The
+   * transformations are created on every call, and changing them does not change the animation.
+   * @return a hashmap with shape id as the key and a list of transformations for that shape as the
+   *          value
+   */
+  @Override
+  public Map<String, List<ITransformation>> getTransformations() {
+    Map<String, List<ITransformation>> transformations = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      PackedTrack track = tracks[i];
+      String id = ids[i];
+      List<ITransformation> list = new ArrayList<>();
+      for (int k = 0; k + 1 < track.size(); k++) {
+        if (!track.isMotion(k)) {
+          continue;
+        }
+        int start = track.timeAt(k);
+        int end = track.timeAt(k + 1);
+        if (track.get(0, k) != track.get(0, k + 1) || track.get(1, k) != track.get(1, k + 1)) {
+          list.add(new Move(start, end, new Point(track.get(0, k), track.get(1, k)),
+                  new Point(track.get(0, k + 1), track.get(1, k + 1)), id));
+        }
+        if (track.get(4, k) != track.get(4, k + 1) || track.get(5, k) != track.get(5, k + 1)
+                || track.get(6, k) != track.get(6, k + 1)) {
+          list.add(new ChangeColor(start, end, track.get(4, k), track.get(5, k), track.get(6, k),
+                  track.get(4, k + 1), track.get(5, k + 1), track.get(6, k + 1), id));
+        }
+        if (track.get(2, k) != track.get(2, k + 1) || track.get(3, k) != track.get(3, k + 1)) {
+          list.add(new Resize(start, end, track.get(3, k), track.get(2, k), track.get(3, k + 1),
+                  track.get(2, k + 1), id));
+        }
+      }
+      transformations.put(id, list);
+    }
+    return transformations;
+  }
+
+  /**
+   * A method to return the frame for the model which will specify dimensions for the animation
+   * frame.
+   * @return a frame object that contains coordinates for the animation frame.
+   */
+  @Override
+  public Frame getFrame() {
+    return this.frame;
+  }
+
+  /**
+   * A method to determine the last tick in an animation.
+   * @return an integer representing last tick in an animation, or 0 when it has no motions
+   */
+  @Override
+  public int getFinalTick() {
+    return finalTick;
+  }
+
+  /**
+   * A method to return the linkedHashMap for animation. The linkedHashMap is created on every call,
+   * but holds the original shapes of the animation themselves.
+   * @return a linkedHashMap for animation
+   */
+  @Override
+  public Map<String, IShape> getAnimation() {
+    return toMap(animation);
+  }
+
+  /**
+   * A method to revert all shapes in an animation back to their original state.
+   * @return a linkedHashMap with each shape reverted back to its original form
+   */
+  @Override
+  public Map<String, IShape> resetAnimation() {
+    Map<String, IShape> copy = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      IShape shape = animation[i];
+      animationsCopy[i].getLocation().movePoint(shape.getLocation().getX(),
+              shape.getLocation().getY());
+      animationsCopy[i].setWidth(shape.getWidth());
+      animationsCopy[i].setHeight(shape.getHeight());
+      animationsCopy[i].setColor(shape.getR(), shape.getG(), shape.getB());
+    }
+    return copy;
+  }
+
+  /**
+   * A method to represent the current animation as a string.
+   * @return a string representation of this animation
+   */
+  @Override
+  public String toString() {
+    StringBuilder animationString = new StringBuilder("Shapes:");
+    boolean first = true;
+    for (int i = 0; i < count; i++) {
+      if (!first) {
+        animationString.append("\n\n").append(animationsCopy[i].toString());
+      } else {
+        animationString.append("\n").append(animationsCopy[i].toString());
+        first = false;
+      }
+    }
+    animationString.append("\n");
+    for (Map.Entry<String, List<ITransformation>> a : getTransformations().entrySet()) {
+      for (ITransformation transformation : a.getValue()) {
+        animationString.append("\n").append(transformation.toString());
+      }
+    }
+    return animationString.toString();
+  }
+
+  /**
+   * A method to write the attributes of a shape at the given time into an array, using the
+   * original state of the shape before its first keyframe.
+   * @param handle the position of the shape in declaration order
+   * @param time the time elapsed in the animation
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   * @param hint the index of a previous lookup to try first, or -1 for none
+   * @return the index of the keyframe the lookup landed on
+   */
+  private int stateAt(int handle, double time, int[] out, int offset, int hint) {
+    PackedTrack track = tracks[handle];
+    if (track.size() == 0 || time < track.timeAt(0)) {
+      IShape s = animation[handle];
+      out[offset] = s.getLocation().getX();
+      out[offset + 1] = s.getLocation().getY();
+      out[offset + 2] = s.getWidth();
+      out[offset + 3] = s.getHeight();
+      out[offset + 4] = s.getR();
+      out[offset + 5] = s.getG();
+      out[offset + 6] = s.getB();
+      return -1;
+    }
+    return track.stateAt(time, out, offset, hint);
+  }
+
+  /**
+   * A method to update the lifetime of a shape, and the last tick of the animation, after a
+   * motion has been added to it.
+   * @param handle the position of the shape in declaration order
+   */
+  private void updateLifetime(int handle) {
+    PackedTrack track = tracks[handle];
+    int first = track.timeAt(0);
+    int last = track.timeAt(track.size() - 1);
+    lifetimes.set(handle, first, last);
+    if (first >= 0) {
+      setLifetime(animation[handle], first, last);
+      setLifetime(animationsCopy[handle], first, last);
+    }
+    finalTick = Math.max(finalTick, last);
+  }
+
+  /**
+   * A method to set the tick a shape appears at and the tick it disappears at.
+   * @param shape the shape
+   * @param first the tick the shape appears at
+   * @param last the tick the shape disappears at
+   */
+  private static void setLifetime(IShape shape, int first, int last) {
+    shape.appears(first);
+    shape.disappears(last);
+  }
+
+  /**
+   * A method to find the position of a shape in declaration order.
+   * @param id a string identifier for a shape
+   * @return the position of the shape
+   * @throws IllegalArgumentException when no shape exists with the given id
+   */
+  private int handleOf(String id) {
+    Integer handle = id == null ? null : handles.get(id);
+    if (handle == null) {
+      throw new IllegalArgumentException("No shape exists with given id");
+    }
+    return handle;
+  }
+
+  /**
+   * A method to key the shapes in an array by their ids, in declaration order.
+   * @param shapes the shapes indexed by handle
+   * @return a linkedHashMap with shape id as the key and a shape object as the value
+   */
+  private Map<String, IShape> toMap(IShape[] shapes) {
+    Map<String, IShape> map = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      map.put(ids[i], shapes[i]);
+    }
+    return map;
+  }
+
+  /**
+   * A class to build a packed animation model based off of information received from
+   * AnimationReader. Motions go straight into the keyframe arrays of their shape without creating
+   * any transformation objects.
+   */
+  public static final class Builder implements AnimationBuilder<IModel> {
+    private PackedModel model = new PackedModel();
+
+    /**
+     * Constructs a final document.
+     *
+     * @return the newly constructed document
+     */
+    @Override
+    public IModel build() {
+      return model;
+    }
+
+    /**
+     * Specify the bounding box to be used for the animation.
+     *
+     * @param x      The leftmost x value
+     * @param y      The topmost y value
+     * @param width  The width of the bounding box
+     * @param height The height of the bounding box
+     * @return This {@link AnimationBuilder}
+     */
+    @Override
+    public AnimationBuilder<IModel> setBounds(int x, int y, int width, int height) {
+      model.createFrame(x, y, width, height);
+      return this;
+    }
+
+    /**
+     * Adds a new shape to the growing document.
+     *
+     * @param name The unique name of the shape to be added. No shape with this name should already
+     *             exist.
+     * @param type The type of shape (e.g. "ellipse", "rectangle") to be added. The set of supported
+     *             shapes is unspecified, but should include "ellipse" and "rectangle" as a
+     *             minimum.
+     * @return This {@link AnimationBuilder}
+     */
+    @Override
+    public AnimationBuilder<IModel> declareShape(String name, String type) {
+      if (type.toLowerCase().equals("rectangle")) {
+        model.addShape(name, new Rectangle());
+      }
+      else {
+        model.addShape(name, new Oval());
+      }
+      return this;
+    }
+
+    /**
+     * Adds a transformation to the growing document.
+     *
+     * @param name The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param t1   The start time of this transformation
+     * @param x1   The initial x-position of the shape
+     * @param y1   The initial y-position of the shape
+     * @param w1   The initial width of the shape
+     * @param h1   The initial height of the shape
+     * @param r1   The initial red color-value of the shape
+     * @param g1   The initial green color-value of the shape
+     * @param b1   The initial blue color-value of the shape
+     * @param t2   The end time of this transformation
+     * @param x2   The final x-position of the shape
+     * @param y2   The final y-position of the shape
+     * @param w2   The final width of the shape
+     * @param h2   The final height of the shape
+     * @param r2   The final red color-value of the shape
+     * @param g2   The final green color-value of the shape
+     * @param b2   The final blue color-value of the shape
+     * @return This {@link AnimationBuilder}
+     */
+    @Override
+    public AnimationBuilder<IModel> addMotion(String name, int t1, int x1, int y1, int w1, int h1,
+                                              int r1, int g1, int b1, int t2, int x2, int y2,
+                                              int w2, int h2, int r2, int g2, int b2) {
+      addMotion(model.handleOf(name), model.frame.getX(), model.frame.getY(),
+              t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2);
+      return this;
+    }
+
+    /**
+     * Adds several transformations of the same shape to the growing document, looking the shape
+     * and the frame offset up once for all of them.
+     *
+     * @param name    The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param count   The number of transformations to add
+     * @param motions The values of the transformations, sixteen per transformation
+     * @param offset  The position in the array of the first value of the first transformation
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when the count is negative or the array is too short
+     */
+    @Override
+    public AnimationBuilder<IModel> addMotions(String name, int count, int[] motions,
+                                               int offset) {
+      if (count < 0 || offset < 0 || offset > motions.length - 16L * count) {
+        throw new IllegalArgumentException("The motions do not fit in the given array");
+      }
+      int handle = model.handleOf(name);
+      int offsetX = model.frame.getX();
+      int offsetY = model.frame.getY();
+      for (int i = offset; i < offset + 16 * count; i += 16) {
+        addMotion(handle, offsetX, offsetY, motions[i], motions[i + 1], motions[i + 2],
+                motions[i + 3], motions[i + 4], motions[i + 5], motions[i + 6], motions[i + 7],
+                motions[i + 8], motions[i + 9], motions[i + 10], motions[i + 11],
+                motions[i + 12], motions[i + 13], motions[i + 14], motions[i + 15]);
+      }
+      return this;
+    }
+
+    /**
+     * A method to add a transformation to a shape whose handle and frame offset are known. The
+     * remaining arguments are those of {@link #addMotion(String, int, int, int, int, int, int, int,
+     * int, int, int, int, int, int, int, int, int)}.
+     * @param handle the handle of the shape
+     * @param offsetX the x-coordinate of the frame
+     * @param offsetY the y-coordinate of the frame
+     */
+    private void addMotion(int handle, int offsetX, int offsetY,
+                           int t1, int x1, int y1, int w1, int h1, int r1, int g1, int b1,
+                           int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2) {
+      IShape s = model.animationsCopy[handle];
+      if (s.getLocation().getX() == 0 && s.getLocation().getY() == 0 && s.getHeight() == 1
+              && s.getWidth() == 1 && s.getR() == 0 && s.getG() == 0 && s.getB() == 0) {
+        setStart(s, x1 - offsetX, y1 - offsetY, w1, h1, r1, g1, b1);
+        setStart(model.animation[handle], x1 - offsetX, y1 - offsetY, w1, h1, r1, g1, b1);
+      }
+      model.addMotion(handle, t1, x1 - offsetX, y1 - offsetY, w1, h1, r1, g1, b1,
+              t2, x2 - offsetX, y2 - offsetY, w2, h2, r2, g2, b2);
+    }
+
+    /**
+     * A method to give a shape the state it starts its first motion in.
+     * @param shape the shape
+     * @param x the x-coordinate of the shape, relative to the frame
+     * @param y the y-coordinate of the shape, relative to the frame
+     * @param w the width of the shape
+     * @param h the height of the shape
+     * @param r the red color-value of the shape
+     * @param g the green color-value of the shape
+     * @param b the blue color-value of the shape
+     */
+    private static void setStart(IShape shape, int x, int y, int w, int h, int r, int g, int b) {
+      shape.getLocation().movePoint(x, y);
+      shape.setColor(r, g, b);
+      shape.setHeight(h);
+      shape.setWidth(w);
+    }
+  }
+}
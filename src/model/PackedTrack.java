@@ -0,0 +1,371 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A class to store the motions of a single shape as keyframes in packed primitive arrays, one
+ * array per attribute, which grow by doubling. A motion is stored as a keyframe for its start and
+ * a keyframe for its end; consecutive motions that meet share a keyframe, and a gap between two
+ * motions is bridged by a keyframe that holds the end of the earlier one until the later one
+ * starts.
+ */
+class PackedTrack {
+  private int[] t = new int[4];
+  private int[] x = new int[4];
+  private int[] y = new int[4];
+  private int[] w = new int[4];
+  private int[] h = new int[4];
+  private int[] r = new int[4];
+  private int[] g = new int[4];
+  private int[] b = new int[4];
+  private boolean[] motion = new boolean[4];
+  private int size = 0;
+  private int cursor = -1;
+
+  /**
+   * A method to append a motion to this track. The values are passed one by one, as they are
+   * read, so that loading a motion allocates nothing beyond the growth of the arrays.
+   * @param t1 the start time of the motion
+   * @param x1 the x-position at the start of the motion
+   * @param y1 the y-position at the start of the motion
+   * @param w1 the width at the start of the motion
+   * @param h1 the height at the start of the motion
+   * @param r1 the red color-value at the start of the motion
+   * @param g1 the green color-value at the start of the motion
+   * @param b1 the blue color-value at the start of the motion
+   * @param t2 the end time of the motion
+   * @param x2 the x-position at the end of the motion
+   * @param y2 the y-position at the end of the motion
+   * @param w2 the width at the end of the motion
+   * @param h2 the height at the end of the motion
+   * @param r2 the red color-value at the end of the motion
+   * @param g2 the green color-value at the end of the motion
+   * @param b2 the blue color-value at the end of the motion
+   * @throws IllegalArgumentException when the motion ends before it starts, or starts before the
+   *          previous motion of this track ends
+   */
+  void addMotion(int t1, int x1, int y1, int w1, int h1, int r1, int g1, int b1,
+                 int t2, int x2, int y2, int w2, int h2, int r2, int g2, int b2) {
+    if (t2 < t1) {
+      throw new IllegalArgumentException("A motion cannot end before it starts");
+    }
+    if (size > 0 && t1 < t[size - 1]) {
+      throw new IllegalArgumentException("Motions of a shape must be added in order and cannot "
+              + "overlap");
+    }
+    boolean same = size > 0 && sameAs(size - 1, x1, y1, w1, h1, r1, g1, b1);
+    if (size == 0 || t1 != t[size - 1] || !same) {
+      if (size > 0 && t1 > t[size - 1] && !same) {
+        append(t1, size - 1);
+      }
+      append(t1, x1, y1, w1, h1, r1, g1, b1);
+    }
+    motion[size - 1] = true;
+    append(t2, x2, y2, w2, h2, r2, g2, b2);
+  }
+
+  /**
+   * A method to change the attributes of one group in the last motion of this track, so that a
+   * motion which arrives as several transformations over the same interval can be stored as one.
+   * @param t1 the start time of the motion
+   * @param t2 the end time of the motion
+   * @param first the index of the first attribute in the group
+   * @param count the number of attributes in the group, two or three
+   * @param s0 the value of the first attribute of the group at the start of the motion
+   * @param s1 the value of the second attribute of the group at the start of the motion
+   * @param s2 the value of the third attribute of the group at the start of the motion, if any
+   * @param e0 the value of the first attribute of the group at the end of the motion
+   * @param e1 the value of the second attribute of the group at the end of the motion
+   * @param e2 the value of the third attribute of the group at the end of the motion, if any
+   * @return true if the last motion covers the interval and did not already change the group,
+   *          false otherwise
+   */
+  boolean mergeIntoLast(int t1, int t2, int first, int count, int s0, int s1, int s2,
+                        int e0, int e1, int e2) {
+    int i = size - 2;
+    if (i < 0 || !motion[i] || t[i] != t1 || t[i + 1] != t2) {
+      return false;
+    }
+    for (int k = 0; k < count; k++) {
+      int start = k == 0 ? s0 : k == 1 ? s1 : s2;
+      if (get(first + k, i) != get(first + k, i + 1) || get(first + k, i) != start) {
+        return false;
+      }
+    }
+    for (int k = 0; k < count; k++) {
+      set(first + k, i + 1, k == 0 ? e0 : k == 1 ? e1 : e2);
+    }
+    return true;
+  }
+
+  /**
+   * A method to return the number of keyframes in this track.
+   * @return the number of keyframes
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * A method to return the time of a keyframe.
+   * @param i the index of the keyframe
+   * @return the time of the keyframe
+   */
+  int timeAt(int i) {
+    return t[i];
+  }
+
+  /**
+   * A method to return one attribute of a keyframe.
+   * @param field the index of the attribute, in the order x, y, width, height, r, g, b
+   * @param i the index of the keyframe
+   * @return the value of the attribute
+   */
+  int get(int field, int i) {
+    switch (field) {
+      case 0:
+        return x[i];
+      case 1:
+        return y[i];
+      case 2:
+        return w[i];
+      case 3:
+        return h[i];
+      case 4:
+        return r[i];
+      case 5:
+        return g[i];
+      default:
+        return b[i];
+    }
+  }
+
+  /**
+   * A method to return whether the span from a keyframe to the next one is a motion that was
+   * added, rather than a hold between two motions.
+   * @param i the index of the keyframe
+   * @return true if a motion starts at this keyframe, false otherwise
+   */
+  boolean isMotion(int i) {
+    return motion[i];
+  }
+
+  /**
+   * A method to write the attributes of the shape at the given tick into an array. Each track
+   * remembers where its last lookup landed, so ticks that increase monotonically during playback
+   * are resolved without a search.
+   * @param tick the time elapsed in the animation
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   */
+  void stateAt(double tick, int[] out, int offset) {
+    cursor = stateAt(tick, out, offset, cursor);
+  }
+
+  /**
+   * A method to write the attributes of the shape at the given tick into an array. Unlike
+   * {@link #stateAt(double, int[], int)} this does not touch the lookup cursor, so any number of
+   * threads may call it at once.
+   * @param tick the time elapsed in the animation
+   * @param out the array to write the x, y, width, height, r, g and b values into
+   * @param offset the index in the array to write the first value at
+   * @param hint the index of a previous lookup to try first, or -1 for none
+   * @return the index of the keyframe the lookup landed on, to be passed as the next hint
+   */
+  int stateAt(double tick, int[] out, int offset, int hint) {
+    int i = indexAt(tick, hint);
+    if (i < 0) {
+      copy(0, out, offset);
+      return i;
+    }
+    if (i == size - 1) {
+      copy(i, out, offset);
+      return i;
+    }
+    int j = i + 1;
+    double span = t[j] - t[i];
+    double before = (t[j] - tick) / span;
+    double after = (tick - t[i]) / span;
+    if (x[i] != x[j] || y[i] != y[j]) {
+      out[offset] = (int) (x[i] * before + x[j] * after);
+      out[offset + 1] = (int) (y[i] * before + y[j] * after);
+    } else {
+      out[offset] = x[i];
+      out[offset + 1] = y[i];
+    }
+    if (w[i] != w[j] || h[i] != h[j]) {
+      out[offset + 2] = (int) (w[i] * before + w[j] * after);
+      out[offset + 3] = (int) (h[i] * before + h[j] * after);
+    } else {
+      out[offset + 2] = w[i];
+      out[offset + 3] = h[i];
+    }
+    if (r[i] != r[j] || g[i] != g[j] || b[i] != b[j]) {
+      out[offset + 4] = (int) (r[i] * before + r[j] * after);
+      out[offset + 5] = (int) (g[i] * before + g[j] * after);
+      out[offset + 6] = (int) (b[i] * before + b[j] * after);
+    } else {
+      out[offset + 4] = r[i];
+      out[offset + 5] = g[i];
+      out[offset + 6] = b[i];
+    }
+    return i;
+  }
+
+  /**
+   * A method to find the last keyframe at or before the given tick.
+   * @param tick the time elapsed in the animation
+   * @param hint the index of a previous lookup to try first, or -1 for none
+   * @return the index of the keyframe, or -1 if the track has not started yet
+   */
+  private int indexAt(double tick, int hint) {
+    if (hint >= 0 && hint < size && t[hint] <= tick) {
+      if (hint + 1 == size || t[hint + 1] > tick) {
+        return hint;
+      }
+      if (hint + 2 == size || t[hint + 2] > tick) {
+        return hint + 1;
+      }
+    }
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (t[mid] <= tick) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo - 1;
+  }
+
+  /**
+   * A method to compare a keyframe with a set of attribute values.
+   * @param i the index of the keyframe
+   * @param vx the x-position to compare with
+   * @param vy the y-position to compare with
+   * @param vw the width to compare with
+   * @param vh the height to compare with
+   * @param vr the red color-value to compare with
+   * @param vg the green color-value to compare with
+   * @param vb the blue color-value to compare with
+   * @return true if the keyframe has exactly the given values, false otherwise
+   */
+  private boolean sameAs(int i, int vx, int vy, int vw, int vh, int vr, int vg, int vb) {
+    return x[i] == vx && y[i] == vy && w[i] == vw && h[i] == vh && r[i] == vr && g[i] == vg
+            && b[i] == vb;
+  }
+
+  /**
+   * A method to copy the attributes of a keyframe into an array.
+   * @param i the index of the keyframe
+   * @param out the array to copy into
+   * @param offset the index in the array to copy the first value to
+   */
+  private void copy(int i, int[] out, int offset) {
+    out[offset] = x[i];
+    out[offset + 1] = y[i];
+    out[offset + 2] = w[i];
+    out[offset + 3] = h[i];
+    out[offset + 4] = r[i];
+    out[offset + 5] = g[i];
+    out[offset + 6] = b[i];
+  }
+
+  /**
+   * A method to append a keyframe with the given attribute values.
+   * @param time the time of the keyframe
+   * @param vx the x-position of the keyframe
+   * @param vy the y-position of the keyframe
+   * @param vw the width of the keyframe
+   * @param vh the height of the keyframe
+   * @param vr the red color-value of the keyframe
+   * @param vg the green color-value of the keyframe
+   * @param vb the blue color-value of the keyframe
+   */
+  private void append(int time, int vx, int vy, int vw, int vh, int vr, int vg, int vb) {
+    grow();
+    t[size] = time;
+    x[size] = vx;
+    y[size] = vy;
+    w[size] = vw;
+    h[size] = vh;
+    r[size] = vr;
+    g[size] = vg;
+    b[size] = vb;
+    motion[size] = false;
+    size++;
+    cursor = -1;
+  }
+
+  /**
+   * A method to append a keyframe that repeats the attribute values of an earlier keyframe.
+   * @param time the time of the keyframe
+   * @param from the index of the keyframe to repeat
+   */
+  private void append(int time, int from) {
+    grow();
+    t[size] = time;
+    x[size] = x[from];
+    y[size] = y[from];
+    w[size] = w[from];
+    h[size] = h[from];
+    r[size] = r[from];
+    g[size] = g[from];
+    b[size] = b[from];
+    motion[size] = false;
+    size++;
+    cursor = -1;
+  }
+
+  /**
+   * A method to set one attribute of a keyframe.
+   * @param field the index of the attribute, in the order x, y, width, height, r, g, b
+   * @param i the index of the keyframe
+   * @param value the new value of the attribute
+   */
+  private void set(int field, int i, int value) {
+    switch (field) {
+      case 0:
+        x[i] = value;
+        break;
+      case 1:
+        y[i] = value;
+        break;
+      case 2:
+        w[i] = value;
+        break;
+      case 3:
+        h[i] = value;
+        break;
+      case 4:
+        r[i] = value;
+        break;
+      case 5:
+        g[i] = value;
+        break;
+      default:
+        b[i] = value;
+        break;
+    }
+  }
+
+  /**
+   * A method to double the capacity of every array once they are full.
+   */
+  private void grow() {
+    if (size == t.length) {
+      int capacity = size * 2;
+      t = Arrays.copyOf(t, capacity);
+      x = Arrays.copyOf(x, capacity);
+      y = Arrays.copyOf(y, capacity);
+      w = Arrays.copyOf(w, capacity);
+      h = Arrays.copyOf(h, capacity);
+      r = Arrays.copyOf(r, capacity);
+      g = Arrays.copyOf(g, capacity);
+      b = Arrays.copyOf(b, capacity);
+      motion = Arrays.copyOf(motion, capacity);
+    }
+  }
+}
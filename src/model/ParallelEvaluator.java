@@ -0,0 +1,110 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A class to split the evaluation of a frame into chunks of consecutive shapes that are evaluated
+ * on a fork/join pool. Each shape of a frame is evaluated into its own preallocated slot of the
+ * result, so the chunks need no locking and the result keeps the order of the shapes. Frames with
+ * fewer shapes than the threshold are evaluated on the calling thread, since below it the cost of
+ * handing out the chunks outweighs the work saved.
+ */
+class ParallelEvaluator {
+  private static final int MIN_CHUNK = 64;
+
+  private final ForkJoinPool pool;
+  private int threshold;
+
+  /**
+   * A method to construct an evaluator that runs on the common fork/join pool and evaluates every
+   * frame on the calling thread until a threshold is set.
+   */
+  ParallelEvaluator() {
+    this.pool = ForkJoinPool.commonPool();
+    this.threshold = Integer.MAX_VALUE;
+  }
+
+  /**
+   * A method to set the number of shapes at which a frame starts being evaluated in parallel.
+   * @param threshold the smallest number of shapes to evaluate in parallel
+   * @throws IllegalArgumentException when the threshold is less than 1
+   */
+  void setThreshold(int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("The parallel threshold must be at least 1");
+    }
+    this.threshold = threshold;
+  }
+
+  /**
+   * A method to evaluate the shapes of a frame, in parallel when there are at least as many as
+   * the threshold. Returns once every shape has been evaluated.
+   * @param size the number of shapes in the frame
+   * @param chunk the work to run for each range of shapes
+   */
+  void run(int size, Chunk chunk) {
+    if (size < threshold) {
+      chunk.evaluate(0, size);
+    }
+    else {
+      int grain = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+      pool.invoke(new Task(chunk, 0, size, grain));
+    }
+  }
+
+  /**
+   * An interface that represents the work of evaluating a range of the shapes in a frame. An
+   * implementation must only write to the result slots of the shapes in its range.
+   */
+  interface Chunk {
+
+    /**
+     * A method to evaluate a range of the shapes in a frame.
+     * @param from the position of the first shape in the range
+     * @param to the position after the last shape in the range
+     */
+    void evaluate(int from, int to);
+  }
+
+  /**
+   * A class to represent a range of shapes that is split in half until it is no larger than the
+   * chunk size.
+   */
+  private static final class Task extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Chunk chunk;
+    private final int from;
+    private final int to;
+    private final int grain;
+
+    /**
+     * A method to construct a task over a range of shapes.
+     * @param chunk the work to run for each range of shapes
+     * @param from the position of the first shape in the range
+     * @param to the position after the last shape in the range
+     * @param grain the largest range to evaluate without splitting
+     */
+    private Task(Chunk chunk, int from, int to, int grain) {
+      this.chunk = chunk;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    /**
+     * A method to evaluate the range, or split it and evaluate both halves in parallel.
+     */
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        chunk.evaluate(from, to);
+      }
+      else {
+        int mid = (from + to) >>> 1;
+        invokeAll(new Task(chunk, from, mid, grain), new Task(chunk, mid, to, grain));
+      }
+    }
+  }
+}
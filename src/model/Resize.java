@@ -8,7 +8,6 @@ public class Resize extends AbstractTransformation {
   int startWidth;
   int endHeight;
   int endWidth;
-  IShape s;
 
   /**
    * A method to construct a resize transformation initialized to a given start time, end time,
@@ -24,12 +23,28 @@ public class Resize extends AbstractTransformation {
    */
   public Resize(int start, int end, int startHeight, int startWidth, int endHeight,
                 int endWidth, IShape shape) {
-    super(start, end, TransformationType.RESIZE);
+    this(start, end, startHeight, startWidth, endHeight, endWidth, shape.getID());
+  }
+
+  /**
+   * A method to construct a resize transformation initialized to a given start time, end time,
+   * start height, start width, end height, end width, and id of the shape on which the
+   * transformation is to be performed.
+   * @param start an integer start time of the transformation
+   * @param end an integer end time of the transformation
+   * @param startHeight an integer start height for the shape
+   * @param startWidth an integer start width for the shape
+   * @param endHeight an integer end height for the shape
+   * @param endWidth an integer end width for the shape
+   * @param shapeID the id of the shape on which the transformation is to be performed
+   */
+  public Resize(int start, int end, int startHeight, int startWidth, int endHeight,
+                int endWidth, String shapeID) {
+    super(start, end, TransformationType.RESIZE, shapeID);
     this.startHeight = startHeight;
     this.startWidth = startWidth;
     this.endHeight = endHeight;
     this.endWidth = endWidth;
-    this.s = shape;
   }
 
   /**
@@ -101,7 +116,7 @@ public class Resize extends AbstractTransformation {
   @Override
   public String toString() {
     return String.format("Shape %s scales from Width: %d, Height: %d to Width: %d, Height: "
-                    + "%d from t = %d to t = %d", s.getID(), startWidth, startHeight, endWidth,
+                    + "%d from t = %d to t = %d", shapeID, startWidth, startHeight, endWidth,
             endHeight, start, end);
   }
 }
@@ -0,0 +1,128 @@
+package model;
+
+/**
+ * A class to represent the immutable state of a single shape at one point in an animation.
+ */
+public final class ShapeSnapshot {
+  private final String id;
+  private final ShapeType type;
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+  private final int r;
+  private final int g;
+  private final int b;
+
+  /**
+   * A method to construct a snapshot of a shape initialized to the given identifier, type,
+   * location, size and color.
+   * @param id the identifier of the shape
+   * @param type the type of the shape
+   * @param x the x coordinate of the lower left corner or center of the shape
+   * @param y the y coordinate of the lower left corner or center of the shape
+   * @param width the width of the shape
+   * @param height the height of the shape
+   * @param r red value for the color of the shape
+   * @param g green value for the color of the shape
+   * @param b blue value for the color of the shape
+   */
+  public ShapeSnapshot(String id, ShapeType type, int x, int y, int width, int height, int r,
+                       int g, int b) {
+    this.id = id;
+    this.type = type;
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+    this.r = r;
+    this.g = g;
+    this.b = b;
+  }
+
+  /**
+   * A method to get the id of the shape.
+   * @return a string representing the id of the shape
+   */
+  public String getID() {
+    return id;
+  }
+
+  /**
+   * A method to return the type of the shape.
+   * @return an enum representing type of shape
+   */
+  public ShapeType getType() {
+    return type;
+  }
+
+  /**
+   * A method to get the x coordinate of the lower left corner or center of the shape.
+   * @return the x coordinate of the shape
+   */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * A method to get the y coordinate of the lower left corner or center of the shape.
+   * @return the y coordinate of the shape
+   */
+  public int getY() {
+    return y;
+  }
+
+  /**
+   * A method to return the width of the shape.
+   * @return the integer width of the shape
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * A method to return the height of the shape.
+   * @return the integer height of the shape
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * A method to get the R component of the RGB color of the shape.
+   * @return the integer R value of the shape
+   */
+  public int getR() {
+    return r;
+  }
+
+  /**
+   * A method to get the G component of the RGB color of the shape.
+   * @return the integer G value of the shape
+   */
+  public int getG() {
+    return g;
+  }
+
+  /**
+   * A method to get the B component of the RGB color of the shape.
+   * @return the integer B value of the shape
+   */
+  public int getB() {
+    return b;
+  }
+
+  /**
+   * A method to represent the snapshot as a string, in the same form as the shape it was taken of.
+   * @return a string representation of this snapshot
+   */
+  @Override
+  public String toString() {
+    if (type == ShapeType.OVAL) {
+      return String.format("Name: %s\nType: oval\nCenter: (%d, %d), X radius: %d, "
+              + "Y radius: %d\nColor: (%d, %d, %d)", id, x, y, width, height, r, g, b);
+    }
+    return String.format("Name: %s\nType: rectangle\nMin corner: (%d, %d), Width: %d, "
+            + "Height: %d\nColor: (%d, %d, %d)", id, x, y, width, height, r, g, b);
+  }
+}
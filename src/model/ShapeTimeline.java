@@ -0,0 +1,236 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class to index the transformations of a single shape by type. Each type of transformation is
+ * kept in its own track sorted by start time, so the transformation that governs a shape at a
+ * given tick can be found with a binary search instead of a walk over every transformation. The
+ * intervals of each type are also kept in a tree keyed on start time, so a transformation that
+ * would overlap another of its type is found by looking only at its neighbour.
+ */
+class ShapeTimeline {
+  static final int TRACKS = TransformationType.values().length;
+
+  private final Track[] tracks;
+  private final List<TreeMap<Integer, Integer>> intervals;
+  private int firstTick;
+  private int lastTick;
+  private boolean empty;
+
+  /**
+   * A method to construct an empty timeline with one track for every type of transformation.
+   */
+  ShapeTimeline() {
+    this.tracks = new Track[TRACKS];
+    this.intervals = new ArrayList<>(TRACKS);
+    for (int i = 0; i < TRACKS; i++) {
+      tracks[i] = new Track();
+      intervals.add(new TreeMap<Integer, Integer>());
+    }
+    this.firstTick = 0;
+    this.lastTick = 0;
+    this.empty = true;
+  }
+
+  /**
+   * A method to add a transformation to the track for its type, keeping the track sorted by start
+   * time. Transformations that are added in start order are appended in constant time.
+   * @param t the transformation to add
+   */
+  void add(ITransformation t) {
+    tracks[t.getType().ordinal()].add(t);
+    if (t.getStartTime() < t.getEndTime()) {
+      intervals.get(t.getType().ordinal()).put(t.getStartTime(), t.getEndTime());
+    }
+    extend(t.getStartTime(), t.getEndTime());
+  }
+
+  /**
+   * A method to determine whether a transformation would run at the same time as another
+   * transformation of its type in this timeline. Two transformations may meet at a tick, and a
+   * transformation that starts and ends at the same tick never overlaps another. Since the
+   * intervals of a type never overlap each other, only the last one starting before the new one
+   * ends can overlap it.
+   * @param t the transformation to check
+   * @return true if the transformation overlaps another of its type, false otherwise
+   */
+  boolean overlaps(ITransformation t) {
+    if (t.getStartTime() >= t.getEndTime()) {
+      return false;
+    }
+    Map.Entry<Integer, Integer> before =
+            intervals.get(t.getType().ordinal()).lowerEntry(t.getEndTime());
+    return before != null && before.getValue() > t.getStartTime();
+  }
+
+  /**
+   * A method to widen the span of ticks this timeline covers, so that it includes the given
+   * interval.
+   * @param start the first tick of the interval
+   * @param end the last tick of the interval
+   */
+  void extend(int start, int end) {
+    if (empty || start < firstTick) {
+      firstTick = start;
+    }
+    if (empty || end > lastTick) {
+      lastTick = end;
+    }
+    empty = false;
+  }
+
+  /**
+   * A method to return the earliest tick covered by this timeline.
+   * @return the first tick of the lifetime of the shape, or 0 when it has no motions
+   */
+  int getFirstTick() {
+    return firstTick;
+  }
+
+  /**
+   * A method to return the latest tick covered by this timeline.
+   * @return the last tick of the lifetime of the shape, or 0 when it has no motions
+   */
+  int getLastTick() {
+    return lastTick;
+  }
+
+  /**
+   * A method to apply to a shape, for every type of transformation, the single transformation
+   * that governs the shape at the given tick. Each track remembers where its last lookup landed,
+   * so ticks that increase monotonically during playback are resolved without a search.
+   * @param s the shape the transformations are performed on
+   * @param tick the time elapsed in the animation
+   * @return the given shape with the attributes corresponding to the given tick
+   */
+  IShape apply(IShape s, double tick) {
+    for (Track track : tracks) {
+      int i = track.indexAt(tick, track.cursor);
+      if (i >= 0) {
+        track.cursor = i;
+        track.items[i].getTransformationsAtTick(s, tick);
+      }
+    }
+    return s;
+  }
+
+  /**
+   * A method to apply to a shape, for every type of transformation, the single transformation
+   * that governs the shape at the given tick. Unlike {@link #apply}, this method does not touch the
+   * lookup cursors, so any number of threads may call it at once.
+   * @param s the shape the transformations are performed on
+   * @param tick the time elapsed in the animation
+   * @return the given shape with the attributes corresponding to the given tick
+   */
+  IShape applyAt(IShape s, double tick) {
+    for (Track track : tracks) {
+      int i = track.indexAt(tick, -1);
+      if (i >= 0) {
+        track.items[i].getTransformationsAtTick(s, tick);
+      }
+    }
+    return s;
+  }
+
+  /**
+   * A method to apply to a shape, for every type of transformation, the single transformation
+   * that governs the shape at the given tick. Each lookup starts from a hint held by the caller and
+   * leaves the hint where it landed, so a caller stepping forward through the ticks is resolved
+   * without a search, without touching the lookup cursors of this timeline.
+   * @param s the shape the transformations are performed on
+   * @param tick the time elapsed in the animation
+   * @param hints the array holding the hint of every track, -1 for none
+   * @param offset the index in the array of the hint for the first track
+   * @return the given shape with the attributes corresponding to the given tick
+   */
+  IShape applyFrom(IShape s, double tick, int[] hints, int offset) {
+    for (int k = 0; k < TRACKS; k++) {
+      Track track = tracks[k];
+      int i = track.indexAt(tick, hints[offset + k]);
+      if (i >= 0) {
+        hints[offset + k] = i;
+        track.items[i].getTransformationsAtTick(s, tick);
+      }
+    }
+    return s;
+  }
+
+  /**
+   * A class to represent the transformations of one type for a shape, sorted by start time.
+   */
+  private static final class Track {
+    private ITransformation[] items = new ITransformation[4];
+    private int[] starts = new int[4];
+    private int size = 0;
+    private int cursor = -1;
+
+    /**
+     * A method to insert a transformation after every transformation that starts at or before it,
+     * so that of two transformations starting together the later added one wins, as it does when
+     * every transformation is applied in the order it was added.
+     * @param t the transformation to insert
+     */
+    private void add(ITransformation t) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+        starts = Arrays.copyOf(starts, size * 2);
+      }
+      int start = t.getStartTime();
+      int i = size;
+      if (size > 0 && starts[size - 1] > start) {
+        i = upperBound(start, size);
+        System.arraycopy(items, i, items, i + 1, size - i);
+        System.arraycopy(starts, i, starts, i + 1, size - i);
+      }
+      items[i] = t;
+      starts[i] = start;
+      size++;
+      cursor = -1;
+    }
+
+    /**
+     * A method to find the last transformation in this track that starts at or before the given
+     * tick, which is the one that determines the attributes it changes at that tick.
+     * @param tick the time elapsed in the animation
+     * @param hint the index of a previous lookup to try first, or -1 for none
+     * @return the index of the governing transformation, or -1 if none has started yet
+     */
+    private int indexAt(double tick, int hint) {
+      if (hint >= 0 && hint < size && starts[hint] <= tick) {
+        if (hint + 1 == size || starts[hint + 1] > tick) {
+          return hint;
+        }
+        if (hint + 2 == size || starts[hint + 2] > tick) {
+          return hint + 1;
+        }
+      }
+      return upperBound(tick, size) - 1;
+    }
+
+    /**
+     * A method to find the first index before the given limit whose start time is after the given
+     * tick.
+     * @param tick the time elapsed in the animation
+     * @param limit the number of leading entries to search
+     * @return the index of the first transformation starting after the tick, or the limit
+     */
+    private int upperBound(double tick, int limit) {
+      int lo = 0;
+      int hi = limit;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (starts[mid] <= tick) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+  }
+}
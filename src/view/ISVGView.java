@@ -2,6 +2,7 @@ package view;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * An interface for SVG objects.
@@ -22,4 +23,11 @@ public interface ISVGView {
    */
   void addToFile(File file);
 
+  /**
+   * Writes the svg to a stream, which is flushed but not closed.
+   * @param out the stream to write to
+   * @throws IOException when the stream cannot be written
+   */
+  void writeTo(OutputStream out) throws IOException;
+
 }
@@ -1,6 +1,8 @@
 package view;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import model.IModel;
 
 /**
@@ -22,4 +24,13 @@ public interface ITextView {
    */
   void fillTextFile(File file, IModel model);
 
+  /**
+   * A method to write a textual description of an animation to a stream, which is flushed but not
+   * closed.
+   * @param out the stream to write to
+   * @param model the model that is to be written in text format
+   * @throws IOException when the stream cannot be written
+   */
+  void writeTo(OutputStream out, IModel model) throws IOException;
+
 }
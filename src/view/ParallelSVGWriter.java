@@ -0,0 +1,176 @@
+package view;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.IModel;
+import model.IShape;
+import model.ITransformation;
+
+/**
+ * A class to write the svg of an animation on a fork/join pool. The element of a shape depends
+ * only on the shape and its transformations, so the shapes are split into batches of about the
+ * same number of transformations, and each batch is written on the pool into a buffer of its own.
+ * The calling thread writes the buffers out in the order of the shapes, so the document is the
+ * same as one written on a single thread. Only a bounded number of batches is written ahead of the
+ * one being written out, which bounds the memory used however large the animation is.
+ *
+ * <p>The shapes are either taken from a model, by {@link #write}, or added one at a time as they
+ * become complete, by {@link #shape}, as the streaming view does. Either way they are only read on
+ * the pool once they have been added, so a model is never used from more than one thread.</p>
+ */
+final class ParallelSVGWriter {
+  private static final int BATCH = 4096;
+
+  private final ForkJoinPool pool;
+  private final Writer out;
+  private final double speed;
+  private final boolean compact;
+  private final int ahead;
+  private final ArrayDeque<Batch> pending;
+  private Batch batch;
+
+  /**
+   * A method to construct a writer that writes the svg of an animation in parallel.
+   * @param out where to write the document
+   * @param speed the speed at which the animation will run
+   * @param compact whether to write a single animate element per attribute of each shape
+   */
+  ParallelSVGWriter(Writer out, double speed, boolean compact) {
+    this.pool = ForkJoinPool.commonPool();
+    this.out = out;
+    this.speed = speed;
+    this.compact = compact;
+    this.ahead = Math.max(2, pool.getParallelism() * 2);
+    this.pending = new ArrayDeque<>();
+    this.batch = new Batch();
+  }
+
+  /**
+   * A method to write the whole svg document of an animation.
+   * @param model the animation to write
+   * @throws IOException when the document cannot be written
+   */
+  void write(IModel model) throws IOException {
+    SVGWriter svg = new SVGWriter(out, speed, compact);
+    svg.header(model.getFrame());
+    try {
+      for (Map.Entry<String, List<ITransformation>> e : model.getTransformations().entrySet()) {
+        shape(model.getShape(e.getKey()), e.getValue());
+      }
+      finish();
+    } finally {
+      cancel();
+    }
+    svg.footer();
+  }
+
+  /**
+   * A method to add the element of a shape. It is written on the pool with the batch it falls in,
+   * and written out after the elements of the shapes added before it, once enough batches are
+   * ahead of it or when {@link #finish} is called.
+   * @param shape the shape as it is at the start of the animation
+   * @param transformations the transformations of the shape
+   * @throws IOException when the elements of an earlier batch cannot be written out
+   */
+  void shape(IShape shape, List<ITransformation> transformations) throws IOException {
+    batch.add(shape, transformations);
+    if (batch.size >= BATCH) {
+      submit();
+      if (pending.size() >= ahead) {
+        pending.remove().join().writeTo(out);
+      }
+    }
+  }
+
+  /**
+   * A method to write out the elements of every shape added so far, waiting for those still being
+   * written on the pool.
+   * @throws IOException when the elements cannot be written out
+   */
+  void finish() throws IOException {
+    if (batch.size > 0) {
+      submit();
+    }
+    while (!pending.isEmpty()) {
+      pending.remove().join().writeTo(out);
+    }
+  }
+
+  /**
+   * A method to give up the batches not written out yet, when the document cannot be completed.
+   */
+  void cancel() {
+    for (Batch task : pending) {
+      task.cancel(false);
+    }
+    pending.clear();
+    batch = new Batch();
+  }
+
+  /**
+   * A method to start writing the current batch on the pool and begin a new one.
+   */
+  private void submit() {
+    pool.execute(batch);
+    pending.add(batch);
+    batch = new Batch();
+  }
+
+  /**
+   * A class to represent the writing of the elements of a batch of shapes on the pool.
+   */
+  private final class Batch extends RecursiveTask<CharArrayWriter> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<IShape> shapes;
+    private final List<List<ITransformation>> transformations;
+    private int size;
+
+    /**
+     * A method to construct an empty batch.
+     */
+    private Batch() {
+      this.shapes = new ArrayList<>();
+      this.transformations = new ArrayList<>();
+      this.size = 0;
+    }
+
+    /**
+     * A method to add a shape to the batch.
+     * @param shape the shape as it is at the start of the animation
+     * @param list the transformations of the shape
+     */
+    private void add(IShape shape, List<ITransformation> list) {
+      shapes.add(shape);
+      transformations.add(list);
+      size += list.size() + 1;
+    }
+
+    /**
+     * A method to write the elements of the shapes in the batch.
+     * @return a buffer holding the elements, in the order the shapes were added
+     */
+    @Override
+    protected CharArrayWriter compute() {
+      CharArrayWriter buffer = new CharArrayWriter(size * 160);
+      SVGWriter svg = new SVGWriter(buffer, speed, compact);
+      try {
+        for (int i = 0; i < shapes.size(); i++) {
+          svg.shape(shapes.get(i), transformations.get(i));
+        }
+        svg.flush();
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not write to a buffer", e);
+      }
+      return buffer;
+    }
+  }
+}
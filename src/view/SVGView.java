@@ -1,21 +1,18 @@
 package view;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
-import model.ChangeColor;
-import model.Frame;
+
+import cs5004.animator.util.ExportSink;
 import model.IModel;
-import model.IShape;
 import model.ITransformation;
-import model.Move;
-import model.Rectangle;
-import model.Resize;
-import model.ShapeType;
-import model.TransformationType;
 
 /**
  * A class to create an svg file for an animation model.
@@ -23,6 +20,8 @@ import model.TransformationType;
 public class SVGView implements ISVGView {
   IModel model;
   static double speed;
+  private boolean parallel;
+  private boolean compact;
 
   /**
    * A class to construct an svg file containing an animation based off the given model.
@@ -34,12 +33,82 @@ public class SVGView implements ISVGView {
    */
   public SVGView(IModel model, String fileName, double speed) throws IOException,
           IllegalArgumentException {
+    this(model, fileName, speed, false);
+  }
+
+  /**
+   * A class to construct an svg file containing an animation based off the given model, optionally
+   * writing the elements of the shapes on all cores. The file is the same either way.
+   * @param model the model to be added to the svg file
+   * @param fileName the name of the file to be added to
+   * @param speed the speed at which the animation will run
+   * @param parallel whether to write the elements of the shapes in parallel
+   * @throws IOException when the file cannot be created
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public SVGView(IModel model, String fileName, double speed, boolean parallel)
+          throws IOException, IllegalArgumentException {
+    this(model, fileName, speed, parallel, false);
+  }
+
+  /**
+   * A class to construct an svg file containing an animation based off the given model, optionally
+   * writing the elements of the shapes on all cores, and optionally in compact form, where each
+   * attribute of a shape is animated by a single element listing all of its values.
+   * @param model the model to be added to the svg file
+   * @param fileName the name of the file to be added to
+   * @param speed the speed at which the animation will run
+   * @param parallel whether to write the elements of the shapes in parallel
+   * @param compact whether to write a single animate element per attribute of each shape
+   * @throws IOException when the file cannot be created
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public SVGView(IModel model, String fileName, double speed, boolean parallel, boolean compact)
+          throws IOException, IllegalArgumentException {
+    this(model, speed, parallel, compact);
+    try (ExportSink sink = ExportSink.open(fileName, false)) {
+      writeTo(sink);
+      sink.commit();
+    }
+    if (!fileName.equals(ExportSink.STDOUT)) {
+      System.out.println("New file created");
+    }
+  }
+
+  /**
+   * A class to write the svg of an animation based off the given model to a stream, such as an
+   * {@link ExportSink} for a file or the standard output. The stream is flushed but not closed.
+   * @param model the model to be written as svg
+   * @param out the stream to write to
+   * @param speed the speed at which the animation will run
+   * @param parallel whether to write the elements of the shapes in parallel
+   * @param compact whether to write a single animate element per attribute of each shape
+   * @throws IOException when the stream cannot be written
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public SVGView(IModel model, OutputStream out, double speed, boolean parallel, boolean compact)
+          throws IOException, IllegalArgumentException {
+    this(model, speed, parallel, compact);
+    writeTo(out);
+  }
+
+  /**
+   * A class to set up a view of the given model without writing it anywhere yet.
+   * @param model the model to be written as svg
+   * @param speed the speed at which the animation will run
+   * @param parallel whether to write the elements of the shapes in parallel
+   * @param compact whether to write a single animate element per attribute of each shape
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  private SVGView(IModel model, double speed, boolean parallel, boolean compact)
+          throws IllegalArgumentException {
     if (speed <= 0) {
       throw new IllegalArgumentException("Cannot provide speed less than 0");
     }
     this.speed = speed;
     this.model = model;
-    addToFile(createSVGFile(fileName));
+    this.parallel = parallel;
+    this.compact = compact;
   }
 
   /**
@@ -50,6 +119,17 @@ public class SVGView implements ISVGView {
    */
   @Override
   public File createSVGFile(String fileName) throws IOException {
+    return createFile(fileName);
+  }
+
+  /**
+   * A method to create a new, empty svg file for either svg view.
+   * @param fileName String object of the file name.
+   * @return a File object.
+   * @throws IllegalArgumentException when a file with the name already exists
+   * @throws IllegalStateException when the file could not be created
+   */
+  static File createFile(String fileName) {
     try {
       File mySVG = new File(fileName);
       if (mySVG.createNewFile()) {
@@ -70,135 +150,32 @@ public class SVGView implements ISVGView {
    */
   @Override
   public void addToFile(File file) {
-    Map<String, List<ITransformation>> allShapes = model.getTransformations();
-    Frame myFrame = model.getFrame();
-
-    try {
-      BufferedWriter out = new BufferedWriter(new FileWriter(file, true));
-      String frameInfo = String.format("<svg width=\"%d\" height=\"%d\" version=\"1.1\""
-                      + " xmlns=\"http://www.w3.org/2000/svg\">\n", myFrame.getWidth(),
-              myFrame.getHeight());
-      String shapeInfo;
-      out.write(frameInfo);
-      for (Map.Entry<String, List<ITransformation>> e : allShapes.entrySet()) {
-        IShape s = model.getShape(e.getKey());
-        if (s.getType() == ShapeType.OVAL) {
-          shapeInfo = String.format("<ellipse id=\"%s\" cx=\"%d\" cy=\"%d\" rx=\"%d\" ry=\"%d\""
-                          + " fill=\"rgb(%d,%d,%d)\" visibility=\"visible\" >\n",
-                  s.getID(), s.getLocation().getX(), s.getLocation().getY(), s.getWidth(),
-                  s.getHeight(), s.getR(), s.getG(), s.getB());
-        } else {
-          shapeInfo = String.format("<rect id=\"%s\" x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" "
-                          + "fill=\"rgb(%d,%d,%d)\" visibility=\"visible\" >\n", s.getID(),
-                  s.getLocation().getX(), s.getLocation().getY(), s.getWidth(), s.getHeight(),
-                  s.getR(), s.getG(), s.getB());
-        }
-        out.write(shapeInfo);
-        for (ITransformation transformation : e.getValue()) {
-          if (transformation.getType() == TransformationType.MOVE) {
-            if (s.getType() == ShapeType.OVAL) {
-              int difference = transformation.getEndTime() - transformation.getStartTime();
-              String moveX = String.format("\t<animate attributeType=\"xml\" begin=\"%.2fs\" "
-                              + "dur=\"%.2fs\" attributeName=\"cx\" from=\"%d\" to=\"%d\" "
-                              + "fill=\"freeze\" />\n",
-                      (transformation.getStartTime() / speed),
-                      (difference / speed),
-                      ((Move) transformation).getLocationStart().getX(),
-                      ((Move) transformation).getLocationEnd().getX());
-              out.write(moveX);
-              String moveY = String.format("\t<animate attributeType=\"xml\" begin=\"%.2fs\" "
-                              + "dur=\"%.2fs\" attributeName=\"cy\" from=\"%d\" to=\"%d\" "
-                              + "fill=\"freeze\" />\n",
-                      (transformation.getStartTime() / speed),
-                      (difference / speed),
-                      ((Move) transformation).getLocationStart().getY(),
-                      ((Move) transformation).getLocationEnd().getY());
-              out.write(moveY);
-            }
-            else {
-              int difference = transformation.getEndTime() - transformation.getStartTime();
-              String moveX = String.format("\t<animate attributeType=\"xml\" begin=\"%.2fs\" dur="
-                              + "\"%.2fs\" attributeName=\"x\" from=\"%d\" to=\"%d\" fill=\""
-                              + "freeze\" />\n",
-                      (transformation.getStartTime() / speed),
-                      (difference / speed),
-                      ((Move) transformation).getLocationStart().getX(),
-                      ((Move) transformation).getLocationEnd().getX());
-              out.write(moveX);
-              String moveY = String.format("\t<animate attributeType=\"xml\" begin=\"%.2fs\" dur="
-                              + "\"%.2fs\" attributeName=\"y\" from=\"%d\" to=\"%d\" fill=\"freeze"
-                              + "\" />\n",
-                      (transformation.getStartTime() / speed),
-                      (difference / speed),
-                      ((Move) transformation).getLocationStart().getY(),
-                      ((Move) transformation).getLocationEnd().getY());
-              out.write(moveY);
-            }
-          }
-          else if (transformation.getType() == TransformationType.CHANGECOLOR) {
-            int difference = transformation.getEndTime() - transformation.getStartTime();
-            String changeColor = String.format("\t<animate attributeType=\"xml\" attributeName"
-                            + "=\"fill\" begin=\"%.2fs\" dur=\"%.2fs\" from=\"rgb(%d,%d,%d)\" to="
-                            + "\"rgb(%d,%d,%d)\" fill=\"freeze\" />\n",
-                    (transformation.getStartTime() / speed),
-                    (difference / speed),
-                    ((ChangeColor) transformation).getStartR(),
-                    ((ChangeColor) transformation).getStartG(),
-                    ((ChangeColor) transformation).getStartB(),
-                    ((ChangeColor) transformation).getEndR(),
-                    ((ChangeColor) transformation).getEndG(),
-                    ((ChangeColor) transformation).getEndB());
-            out.write(changeColor);
-          }
-          else {
-            if (s.getType() == ShapeType.RECTANGLE) {
-              int difference = transformation.getEndTime() - transformation.getStartTime();
-              String changeWidth = String.format("\t<animate attributeType=\"xml\" attributeName"
-                              + "=\"width\" from=\"%d\" to=\"%d\" begin=\"%.2fs\" dur=\"%.2fs\" "
-                              + "fill=\"freeze\" />\n", ((Resize) transformation).getStartWidth(),
-                      ((Resize) transformation).getEndWidth(),
-                      (transformation.getStartTime() / speed),
-                      (difference / speed));
-              out.write(changeWidth);
-              String changeHeight = String.format("\t<animate attributeType=\"xml\" attributeName"
-                              + "=\"height\" from=\"%d\" to=\"%d\" begin=\"%.2fs\" dur=\"%.2fs\" "
-                              + "fill=\"freeze\" />\n", ((Resize) transformation).getStartHeight(),
-                      ((Resize) transformation).getEndHeight(),
-                      (transformation.getStartTime() / speed),
-                      (difference / speed));
-              out.write(changeHeight);
-            } else {
-              int difference = transformation.getEndTime() - transformation.getStartTime();
-              String changeRX = String.format("\t<animate attributeType=\"xml\" attributeName"
-                              + "=\"rx\" from=\"%d\" to=\"%d\" begin=\"%.2fs\" dur=\"%.2fs\" "
-                              + "fill=\"freeze\" />\n", ((Resize) transformation).getStartWidth(),
-                      ((Resize) transformation).getEndWidth(),
-                      (transformation.getStartTime() / speed),
-                      (difference / speed));
-              out.write(changeRX);
-              String changeRY = String.format("\t<animate attributeType=\"xml\" attributeName"
-                              + "=\"ry\" from=\"%d\" to=\"%d\" begin=\"%.2fs\" dur=\"%.2fs\" "
-                              + "fill=\"freeze\" />\n", ((Resize) transformation).getStartHeight(),
-                      ((Resize) transformation).getEndHeight(),
-                      (transformation.getStartTime() / speed),
-                      (difference / speed));
-              out.write(changeRY);
-            }
-          }
-        }
-        if (s instanceof Rectangle) {
-          String endRect = "</rect>\n";
-          out.write(endRect);
-        } else {
-          String endEllipse = "</ellipse>\n";
-          out.write(endEllipse);
-        }
-      }
-      String endSVG = "</svg>\n";
-      out.write(endSVG);
-      out.close();
+    try (OutputStream out = new FileOutputStream(file, true)) {
+      writeTo(out);
     } catch (IOException e) {
       throw new IllegalStateException("Could not open file");
     }
   }
+
+  /**
+   * Writes the svg of the animation to a stream, which is flushed but not closed.
+   * @param out the stream to write to
+   * @throws IOException when the stream cannot be written
+   */
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    if (parallel) {
+      new ParallelSVGWriter(writer, speed, compact).write(model);
+    }
+    else {
+      SVGWriter svg = new SVGWriter(writer, speed, compact);
+      svg.header(model.getFrame());
+      for (Map.Entry<String, List<ITransformation>> e : model.getTransformations().entrySet()) {
+        svg.shape(model.getShape(e.getKey()), e.getValue());
+      }
+      svg.footer();
+    }
+    writer.flush();
+  }
 }
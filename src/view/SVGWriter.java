@@ -0,0 +1,466 @@
+package view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import model.ChangeColor;
+import model.Frame;
+import model.IShape;
+import model.ITransformation;
+import model.Move;
+import model.Rectangle;
+import model.Resize;
+import model.ShapeType;
+import model.TransformationType;
+
+/**
+ * A class to write the elements of an svg animation. Every element is assembled from fixed pieces
+ * of text and the values between them, appended straight into one buffer that is reused for the
+ * whole document, so that writing an element creates no strings and boxes no numbers. Times are
+ * written in seconds with two decimals, rounded half up as {@code %.2f} does.
+ *
+ * <p>In compact mode each attribute of a shape gets a single animate element, whose values and
+ * key times list the states the attribute passes through over all of its transformations, in
+ * place of one element per transformation. Between transformations the attribute holds its last
+ * value, and where a transformation starts from a value other than the one the last ended at, the
+ * attribute jumps at its start, as it does with separate elements.</p>
+ */
+final class SVGWriter {
+  private static final int FLUSH = 1 << 13;
+  private static final String ANIMATE = "\t<animate attributeType=\"xml\"";
+  private static final String FREEZE = " fill=\"freeze\" />\n";
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int WIDTH = 2;
+  private static final int HEIGHT = 3;
+  private static final int COLOR = 4;
+  private static final Comparator<ITransformation> BY_START = new Comparator<ITransformation>() {
+    @Override
+    public int compare(ITransformation a, ITransformation b) {
+      return Integer.compare(a.getStartTime(), b.getStartTime());
+    }
+  };
+
+  private final Writer out;
+  private final double speed;
+  private final long wholeSpeed;
+  private final boolean compact;
+  private final StringBuilder buffer;
+  private char[] chars;
+  private int[] keyTicks;
+  private int[] keyValues;
+
+  /**
+   * A method to construct a writer of svg elements, with one animate element per attribute and
+   * transformation.
+   * @param out where to write the elements
+   * @param speed the speed at which the animation will run, in ticks per second
+   */
+  SVGWriter(Writer out, double speed) {
+    this(out, speed, false);
+  }
+
+  /**
+   * A method to construct a writer of svg elements.
+   * @param out where to write the elements
+   * @param speed the speed at which the animation will run, in ticks per second
+   * @param compact whether to write a single animate element per attribute of each shape
+   */
+  SVGWriter(Writer out, double speed, boolean compact) {
+    this.out = out;
+    this.compact = compact;
+    this.keyTicks = new int[16];
+    this.keyValues = new int[16];
+    this.speed = speed;
+    this.wholeSpeed = speed == Math.rint(speed) && speed <= Integer.MAX_VALUE ? (long) speed : 0;
+    this.buffer = new StringBuilder(FLUSH * 2);
+    this.chars = new char[FLUSH * 2];
+  }
+
+  /**
+   * A method to write the opening tag of an svg document.
+   * @param frame the frame of the animation, which gives the size of the document
+   * @throws IOException when the tag cannot be written
+   * @throws IllegalStateException when the animation has no frame, so the document has no size
+   */
+  void header(Frame frame) throws IOException {
+    if (frame == null) {
+      throw new IllegalStateException("Cannot write an svg without a canvas");
+    }
+    buffer.append("<svg width=\"").append(frame.getWidth())
+            .append("\" height=\"").append(frame.getHeight())
+            .append("\" version=\"1.1\" xmlns=\"http://www.w3.org/2000/svg\">\n");
+    drain(0);
+  }
+
+  /**
+   * A method to write the closing tag of an svg document, and pass everything written on.
+   * @throws IOException when the tag cannot be written
+   */
+  void footer() throws IOException {
+    buffer.append("</svg>\n");
+    drain(0);
+  }
+
+  /**
+   * A method to write the element of one shape, with an animate element for each of its
+   * transformations, or in compact mode for each attribute they change.
+   * @param s the shape as it is at the start of the animation
+   * @param transformations the transformations of the shape
+   * @throws IOException when the element cannot be written
+   */
+  void shape(IShape s, List<ITransformation> transformations) throws IOException {
+    if (s.getType() == ShapeType.OVAL) {
+      buffer.append("<ellipse id=\"").append(s.getID())
+              .append("\" cx=\"").append(s.getLocation().getX())
+              .append("\" cy=\"").append(s.getLocation().getY())
+              .append("\" rx=\"").append(s.getWidth())
+              .append("\" ry=\"").append(s.getHeight());
+    }
+    else {
+      buffer.append("<rect id=\"").append(s.getID())
+              .append("\" x=\"").append(s.getLocation().getX())
+              .append("\" y=\"").append(s.getLocation().getY())
+              .append("\" width=\"").append(s.getWidth())
+              .append("\" height=\"").append(s.getHeight());
+    }
+    buffer.append("\" fill=\"rgb(").append(s.getR()).append(',').append(s.getG()).append(',')
+            .append(s.getB()).append(")\" visibility=\"visible\" >\n");
+    if (compact) {
+      compact(s, transformations);
+    }
+    else {
+      for (ITransformation t : transformations) {
+        int start = t.getStartTime();
+        int duration = t.getEndTime() - start;
+        if (t.getType() == TransformationType.MOVE) {
+          Move move = (Move) t;
+          boolean oval = s.getType() == ShapeType.OVAL;
+          move(start, duration, oval ? "cx" : "x", move.getLocationStart().getX(),
+                  move.getLocationEnd().getX());
+          move(start, duration, oval ? "cy" : "y", move.getLocationStart().getY(),
+                  move.getLocationEnd().getY());
+        }
+        else if (t.getType() == TransformationType.CHANGECOLOR) {
+          color(start, duration, (ChangeColor) t);
+        }
+        else {
+          Resize resize = (Resize) t;
+          boolean rectangle = s.getType() == ShapeType.RECTANGLE;
+          resize(start, duration, rectangle ? "width" : "rx", resize.getStartWidth(),
+                  resize.getEndWidth());
+          resize(start, duration, rectangle ? "height" : "ry", resize.getStartHeight(),
+                  resize.getEndHeight());
+        }
+        if (buffer.length() >= FLUSH) {
+          drain(FLUSH);
+        }
+      }
+    }
+    buffer.append(s instanceof Rectangle ? "</rect>\n" : "</ellipse>\n");
+    drain(FLUSH);
+  }
+
+  /**
+   * A method to pass everything written on to the underlying writer.
+   * @throws IOException when it cannot be written
+   */
+  void flush() throws IOException {
+    drain(0);
+    out.flush();
+  }
+
+  /**
+   * A method to write a single animate element for each attribute the transformations of a shape
+   * change.
+   * @param s the shape as it is at the start of the animation
+   * @param transformations the transformations of the shape
+   * @throws IOException when the elements cannot be written
+   */
+  private void compact(IShape s, List<ITransformation> transformations) throws IOException {
+    List<ITransformation> moves = new ArrayList<>();
+    List<ITransformation> colors = new ArrayList<>();
+    List<ITransformation> resizes = new ArrayList<>();
+    for (ITransformation t : transformations) {
+      if (t.getType() == TransformationType.MOVE) {
+        moves.add(t);
+      }
+      else if (t.getType() == TransformationType.CHANGECOLOR) {
+        colors.add(t);
+      }
+      else {
+        resizes.add(t);
+      }
+    }
+    boolean oval = s.getType() == ShapeType.OVAL;
+    boolean rectangle = s.getType() == ShapeType.RECTANGLE;
+    track(moves, X, oval ? "cx" : "x");
+    track(moves, Y, oval ? "cy" : "y");
+    track(colors, COLOR, "fill");
+    track(resizes, WIDTH, rectangle ? "width" : "rx");
+    track(resizes, HEIGHT, rectangle ? "height" : "ry");
+  }
+
+  /**
+   * A method to write one animate element for an attribute changed by a list of transformations
+   * of the same type, which do not overlap. Transformations that all happen in an instant are
+   * written as separate elements, as there is no span of time to list key times over.
+   * @param list the transformations, in any order
+   * @param field the attribute of the transformations to write
+   * @param attribute the name of the attribute in the svg
+   * @throws IOException when the element cannot be written
+   */
+  private void track(List<ITransformation> list, int field, String attribute)
+          throws IOException {
+    if (list.isEmpty()) {
+      return;
+    }
+    Collections.sort(list, BY_START);
+    int first = list.get(0).getStartTime();
+    int last = first;
+    for (ITransformation t : list) {
+      last = Math.max(last, t.getEndTime());
+    }
+    if (last == first) {
+      for (ITransformation t : list) {
+        single(t, field, attribute);
+      }
+      return;
+    }
+    if (keyTicks.length < list.size() * 3) {
+      keyTicks = new int[list.size() * 3];
+      keyValues = new int[list.size() * 3];
+    }
+    int count = 0;
+    for (ITransformation t : list) {
+      int from = value(t, field, false);
+      if (count == 0 || keyTicks[count - 1] < t.getStartTime()
+              || keyValues[count - 1] != from) {
+        if (count > 0 && keyTicks[count - 1] < t.getStartTime()
+                && keyValues[count - 1] != from) {
+          keyTicks[count] = t.getStartTime();
+          keyValues[count] = keyValues[count - 1];
+          count++;
+        }
+        keyTicks[count] = t.getStartTime();
+        keyValues[count] = from;
+        count++;
+      }
+      keyTicks[count] = t.getEndTime();
+      keyValues[count] = value(t, field, true);
+      count++;
+    }
+    buffer.append(ANIMATE);
+    times(first, last - first);
+    buffer.append(" attributeName=\"").append(attribute).append("\" values=\"");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        buffer.append(';');
+      }
+      if (field == COLOR) {
+        buffer.append("rgb(").append(keyValues[i] >>> 16).append(',')
+                .append(keyValues[i] >>> 8 & 0xff).append(',').append(keyValues[i] & 0xff)
+                .append(')');
+      }
+      else {
+        buffer.append(keyValues[i]);
+      }
+    }
+    buffer.append("\" keyTimes=\"");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        buffer.append(';');
+      }
+      fraction(keyTicks[i] - first, last - first);
+    }
+    buffer.append('"').append(FREEZE);
+    if (buffer.length() >= FLUSH) {
+      drain(FLUSH);
+    }
+  }
+
+  /**
+   * A method to write the animate element of one attribute of one transformation, as it is
+   * written outside compact mode.
+   * @param t the transformation
+   * @param field the attribute of the transformation to write
+   * @param attribute the name of the attribute in the svg
+   */
+  private void single(ITransformation t, int field, String attribute) {
+    int start = t.getStartTime();
+    int duration = t.getEndTime() - start;
+    if (field == COLOR) {
+      color(start, duration, (ChangeColor) t);
+    }
+    else if (field == X || field == Y) {
+      move(start, duration, attribute, value(t, field, false), value(t, field, true));
+    }
+    else {
+      resize(start, duration, attribute, value(t, field, false), value(t, field, true));
+    }
+  }
+
+  /**
+   * A method to find the value of one attribute at the start or end of a transformation.
+   * @param t the transformation
+   * @param field the attribute, where a color is packed as red, green and blue bytes
+   * @param end whether to find the value at the end rather than the start
+   * @return the value of the attribute
+   */
+  private static int value(ITransformation t, int field, boolean end) {
+    switch (field) {
+      case X:
+        return end ? ((Move) t).getLocationEnd().getX() : ((Move) t).getLocationStart().getX();
+      case Y:
+        return end ? ((Move) t).getLocationEnd().getY() : ((Move) t).getLocationStart().getY();
+      case WIDTH:
+        return end ? ((Resize) t).getEndWidth() : ((Resize) t).getStartWidth();
+      case HEIGHT:
+        return end ? ((Resize) t).getEndHeight() : ((Resize) t).getStartHeight();
+      default:
+        ChangeColor c = (ChangeColor) t;
+        return end ? c.getEndR() << 16 | c.getEndG() << 8 | c.getEndB()
+                : c.getStartR() << 16 | c.getStartG() << 8 | c.getStartB();
+    }
+  }
+
+  /**
+   * A method to write a key time, the fraction of the span of an animate element that has passed
+   * at a tick, with enough decimals to tell every tick of the span apart.
+   * @param ticks the number of ticks since the start of the span
+   * @param span the number of ticks in the span, at least 1
+   */
+  private void fraction(int ticks, int span) {
+    int decimals = 2;
+    long scale = 100;
+    while (scale < span * 10L && decimals < 8) {
+      scale *= 10;
+      decimals++;
+    }
+    long scaled = (2 * ticks * scale + span) / (2L * span);
+    if (scaled == 0 || scaled == scale) {
+      buffer.append(scaled == 0 ? '0' : '1');
+      return;
+    }
+    buffer.append("0.");
+    int length = buffer.length();
+    buffer.append(scaled + scale).deleteCharAt(length);
+    int end = buffer.length();
+    while (buffer.charAt(end - 1) == '0') {
+      end--;
+    }
+    buffer.setLength(end);
+  }
+
+  /**
+   * A method to write an animate element for a change of color.
+   * @param start the tick the change starts at
+   * @param duration the number of ticks the change lasts
+   * @param color the change of color
+   */
+  private void color(int start, int duration, ChangeColor color) {
+    buffer.append(ANIMATE).append(" attributeName=\"fill\"");
+    times(start, duration);
+    buffer.append(" from=\"rgb(").append(color.getStartR()).append(',')
+            .append(color.getStartG()).append(',').append(color.getStartB())
+            .append(")\" to=\"rgb(").append(color.getEndR()).append(',')
+            .append(color.getEndG()).append(',').append(color.getEndB()).append(")\"")
+            .append(FREEZE);
+  }
+
+  /**
+   * A method to write an animate element for one coordinate of a move.
+   * @param start the tick the move starts at
+   * @param duration the number of ticks the move lasts
+   * @param attribute the name of the coordinate
+   * @param from the coordinate at the start of the move
+   * @param to the coordinate at the end of the move
+   */
+  private void move(int start, int duration, String attribute, int from, int to) {
+    buffer.append(ANIMATE);
+    times(start, duration);
+    buffer.append(" attributeName=\"").append(attribute).append("\" from=\"").append(from)
+            .append("\" to=\"").append(to).append('"').append(FREEZE);
+  }
+
+  /**
+   * A method to write an animate element for one dimension of a resize.
+   * @param start the tick the resize starts at
+   * @param duration the number of ticks the resize lasts
+   * @param attribute the name of the dimension
+   * @param from the dimension at the start of the resize
+   * @param to the dimension at the end of the resize
+   */
+  private void resize(int start, int duration, String attribute, int from, int to) {
+    buffer.append(ANIMATE).append(" attributeName=\"").append(attribute).append("\" from=\"")
+            .append(from).append("\" to=\"").append(to).append('"');
+    times(start, duration);
+    buffer.append(FREEZE);
+  }
+
+  /**
+   * A method to write the begin and dur attributes of an animate element, with a space in front.
+   * @param start the tick the animation starts at
+   * @param duration the number of ticks it lasts
+   */
+  private void times(int start, int duration) {
+    buffer.append(" begin=\"");
+    seconds(start);
+    buffer.append("s\" dur=\"");
+    seconds(duration);
+    buffer.append("s\"");
+  }
+
+  /**
+   * A method to write a number of ticks in seconds with two decimals, as {@code %.2f} would. With
+   * a whole speed the rounding is exact in integers. Otherwise it is done on the scaled double,
+   * except for a value so close to halfway between two hundredths that the digits {@code %.2f}
+   * rounds from could differ from the double, which is left to {@code %.2f} itself.
+   * @param ticks the number of ticks
+   */
+  private void seconds(int ticks) {
+    long hundredths;
+    if (wholeSpeed > 0 && ticks >= 0) {
+      hundredths = (200L * ticks + wholeSpeed) / (2 * wholeSpeed);
+    }
+    else {
+      double scaled = ticks / speed * 100;
+      double fraction = scaled - Math.floor(scaled);
+      if (ticks < 0 || scaled >= 1e15 || Math.abs(fraction - 0.5) < 1e-6) {
+        buffer.append(String.format(Locale.ROOT, "%.2f", ticks / speed));
+        return;
+      }
+      hundredths = (long) Math.floor(scaled + 0.5);
+    }
+    long fraction = hundredths % 100;
+    buffer.append(hundredths / 100).append('.');
+    if (fraction < 10) {
+      buffer.append('0');
+    }
+    buffer.append(fraction);
+  }
+
+  /**
+   * A method to pass the buffer on to the underlying writer once it holds at least the given number
+   * of characters, and empty it.
+   * @param least the smallest number of characters worth writing
+   * @throws IOException when the characters cannot be written
+   */
+  private void drain(int least) throws IOException {
+    int length = buffer.length();
+    if (length < least || length == 0) {
+      return;
+    }
+    if (chars.length < length) {
+      chars = new char[length];
+    }
+    buffer.getChars(0, length, chars, 0);
+    out.write(chars, 0, length);
+    buffer.setLength(0);
+  }
+}
@@ -0,0 +1,397 @@
+package view;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import cs5004.animator.util.AnimationBuilder;
+import cs5004.animator.util.AnimationReader;
+import cs5004.animator.util.ExportSink;
+import model.Frame;
+import model.IModel;
+import model.IShape;
+import model.ITransformation;
+import model.Model;
+
+/**
+ * A class to create an svg file straight from an animation file, without building a model of the
+ * whole animation. The motions of each shape in the file are counted first, so that while the file
+ * is read the element of a shape can be written as soon as its last motion has been read. Until
+ * then the shape is kept in a model of its own, which checks its motions exactly as a model of the
+ * whole animation would. Elements are written in the order the shapes were declared, so a shape
+ * that is complete is only kept until the shapes declared before it are complete too. When the
+ * motions of each shape are together in the file, only one shape is kept at a time, so the memory
+ * used does not grow with the length of the file. The elements of complete shapes can also be
+ * written in parallel, in batches that are written out in the same order.
+ */
+public class StreamingSVGView implements ISVGView {
+  private final Path input;
+  private final double speed;
+  private final boolean parallel;
+  private final boolean compact;
+  private final Map<String, Integer> counts;
+
+  /**
+   * A method to construct an svg file containing the animation in the given file.
+   * @param input the animation file, in the format read by {@link AnimationReader}
+   * @param fileName the name of the file to be added to
+   * @param speed the speed at which the animation will run
+   * @throws IOException when the animation file cannot be read or the svg file cannot be created
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public StreamingSVGView(Path input, String fileName, double speed) throws IOException,
+          IllegalArgumentException {
+    this(input, fileName, speed, false);
+  }
+
+  /**
+   * A method to construct an svg file containing the animation in the given file, optionally in
+   * compact form, where each attribute of a shape is animated by a single element listing all of
+   * its values.
+   * @param input the animation file, in the format read by {@link AnimationReader}
+   * @param fileName the name of the file to be added to
+   * @param speed the speed at which the animation will run
+   * @param compact whether to write a single animate element per attribute of each shape
+   * @throws IOException when the animation file cannot be read or the svg file cannot be created
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public StreamingSVGView(Path input, String fileName, double speed, boolean compact)
+          throws IOException, IllegalArgumentException {
+    if (speed <= 0) {
+      throw new IllegalArgumentException("Cannot provide speed less than 0");
+    }
+    this.input = input;
+    this.speed = speed;
+    this.parallel = false;
+    this.compact = compact;
+    this.counts = AnimationReader.countMotions(input);
+    try (ExportSink sink = ExportSink.open(fileName, false)) {
+      writeTo(sink);
+      sink.commit();
+    }
+    if (!fileName.equals(ExportSink.STDOUT)) {
+      System.out.println("New file created");
+    }
+  }
+
+  /**
+   * A method to write the svg of the animation in the given file to a stream, such as an
+   * {@link ExportSink} for a file or the standard output, optionally writing the elements of the
+   * shapes in parallel and optionally in compact form. The stream is flushed but not closed.
+   * @param input the animation file, in the format read by {@link AnimationReader}
+   * @param out the stream to write to
+   * @param speed the speed at which the animation will run
+   * @param parallel whether to write the elements of the shapes in parallel
+   * @param compact whether to write a single animate element per attribute of each shape
+   * @throws IOException when the animation file cannot be read or the stream cannot be written
+   * @throws IllegalArgumentException when speed is less than or equal to zero
+   */
+  public StreamingSVGView(Path input, OutputStream out, double speed, boolean parallel,
+                          boolean compact) throws IOException, IllegalArgumentException {
+    if (speed <= 0) {
+      throw new IllegalArgumentException("Cannot provide speed less than 0");
+    }
+    this.input = input;
+    this.speed = speed;
+    this.parallel = parallel;
+    this.compact = compact;
+    this.counts = AnimationReader.countMotions(input);
+    writeTo(out);
+  }
+
+  /**
+   * Creates the SVG using the file name.
+   * @param fileName String object of the file name.
+   * @return a File object.
+   * @throws IOException if an error occurred and the SVG could not be created.
+   */
+  @Override
+  public File createSVGFile(String fileName) throws IOException {
+    return SVGView.createFile(fileName);
+  }
+
+  /**
+   * Reads the animation file and writes its svg to the file given. When the animation file turns
+   * out to be invalid, the partly written svg is deleted.
+   * @param file the File object.
+   */
+  @Override
+  public void addToFile(File file) {
+    boolean done = false;
+    try (OutputStream out = new FileOutputStream(file, true)) {
+      writeTo(out);
+      done = true;
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not open file");
+    } finally {
+      if (!done) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Reads the animation file and writes its svg to a stream, which is flushed but not closed.
+   * @param out the stream to write to
+   * @throws IOException when the animation file cannot be read or the stream cannot be written
+   */
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    Emitter emitter = new Emitter(writer);
+    try {
+      AnimationReader.parsePath(input, emitter);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      emitter.cancel();
+    }
+    writer.flush();
+  }
+
+  /**
+   * A class to represent a shape whose element has not been written yet.
+   */
+  private static final class Pending {
+    private final String name;
+    private final AnimationBuilder<IModel> builder;
+    private int remaining;
+
+    /**
+     * A method to construct a shape that is waiting for its motions.
+     * @param name the id of the shape
+     * @param builder a builder of a model holding only this shape
+     * @param remaining the number of motions of the shape still to come
+     */
+    private Pending(String name, AnimationBuilder<IModel> builder, int remaining) {
+      this.name = name;
+      this.builder = builder;
+      this.remaining = remaining;
+    }
+  }
+
+  /**
+   * A class to receive the statements of the animation file and write the element of each shape
+   * once it is complete.
+   */
+  private final class Emitter implements AnimationBuilder<Void> {
+    private final SVGWriter out;
+    private final ParallelSVGWriter batches;
+    private final Set<String> declared;
+    private final Map<String, Pending> open;
+    private final ArrayDeque<Pending> order;
+    private int[] bounds;
+    private boolean started;
+
+    /**
+     * A method to construct an emitter that writes to the given writer.
+     * @param out where to write the svg
+     */
+    private Emitter(Writer out) {
+      this.out = new SVGWriter(out, speed, compact);
+      this.batches = parallel ? new ParallelSVGWriter(out, speed, compact) : null;
+      this.declared = new HashSet<>();
+      this.open = new HashMap<>();
+      this.order = new ArrayDeque<>();
+      this.bounds = null;
+      this.started = false;
+    }
+
+    /**
+     * Writes every shape not written yet, and closes the svg.
+     * @return null
+     * @throws UncheckedIOException when the svg cannot be written
+     * @throws IllegalStateException when the file has no canvas, so the svg has no size
+     */
+    @Override
+    public Void build() {
+      if (bounds == null) {
+        throw new IllegalStateException("Cannot write an svg without a canvas");
+      }
+      try {
+        while (!order.isEmpty()) {
+          write(order.remove());
+        }
+        if (batches != null) {
+          batches.finish();
+        }
+        if (!started) {
+          out.header(new Frame(bounds[0], bounds[1], bounds[2], bounds[3]));
+        }
+        out.footer();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return null;
+    }
+
+    /**
+     * Specify the bounding box to be used for the animation, for every shape not written yet.
+     * @param x      The leftmost x value
+     * @param y      The topmost y value
+     * @param width  The width of the bounding box
+     * @param height The height of the bounding box
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalStateException when the size changes after the svg has been started
+     */
+    @Override
+    public AnimationBuilder<Void> setBounds(int x, int y, int width, int height) {
+      if (started && (width != bounds[2] || height != bounds[3])) {
+        throw new IllegalStateException("The canvas cannot be resized after shapes are written");
+      }
+      bounds = new int[]{x, y, width, height};
+      for (Pending pending : order) {
+        pending.builder.setBounds(x, y, width, height);
+      }
+      return this;
+    }
+
+    /**
+     * Adds a new shape, in a model of its own.
+     * @param name The unique name of the shape to be added
+     * @param type The type of shape to be added
+     * @return This {@link AnimationBuilder}
+     * @throws IllegalArgumentException when a shape with the name already exists
+     */
+    @Override
+    public AnimationBuilder<Void> declareShape(String name, String type) {
+      if (!declared.add(name)) {
+        throw new IllegalArgumentException("ID must be unique!");
+      }
+      AnimationBuilder<IModel> builder = new Model.Builder();
+      if (bounds != null) {
+        builder.setBounds(bounds[0], bounds[1], bounds[2], bounds[3]);
+      }
+      builder.declareShape(name, type);
+      Integer count = counts.get(name);
+      Pending pending = new Pending(name, builder, count == null ? 0 : count);
+      open.put(name, pending);
+      order.add(pending);
+      flush();
+      return this;
+    }
+
+    /**
+     * Adds a motion to a shape not written yet.
+     * @param name The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param t1   The start time of this transformation
+     * @param x1   The initial x-position of the shape
+     * @param y1   The initial y-position of the shape
+     * @param w1   The initial width of the shape
+     * @param h1   The initial height of the shape
+     * @param r1   The initial red color-value of the shape
+     * @param g1   The initial green color-value of the shape
+     * @param b1   The initial blue color-value of the shape
+     * @param t2   The end time of this transformation
+     * @param x2   The final x-position of the shape
+     * @param y2   The final y-position of the shape
+     * @param w2   The final width of the shape
+     * @param h2   The final height of the shape
+     * @param r2   The final red color-value of the shape
+     * @param g2   The final green color-value of the shape
+     * @param b2   The final blue color-value of the shape
+     * @return This {@link AnimationBuilder}
+     */
+    @Override
+    public AnimationBuilder<Void> addMotion(String name, int t1, int x1, int y1, int w1, int h1,
+                                            int r1, int g1, int b1, int t2, int x2, int y2,
+                                            int w2, int h2, int r2, int g2, int b2) {
+      return addMotions(name, 1, new int[]{t1, x1, y1, w1, h1, r1, g1, b1,
+          t2, x2, y2, w2, h2, r2, g2, b2}, 0);
+    }
+
+    /**
+     * Adds several motions to a shape not written yet, and writes the shape if they were its
+     * last.
+     * @param name    The name of the shape (added with {@link AnimationBuilder#declareShape})
+     * @param count   The number of transformations to add
+     * @param motions The values of the transformations, sixteen per transformation
+     * @param offset  The position in the array of the first value of the first transformation
+     * @return This {@link AnimationBuilder}
+     * @throws NoSuchElementException when no shape has the name
+     * @throws IllegalStateException when the shape has already been written, or no canvas has
+     *          been given yet
+     */
+    @Override
+    public AnimationBuilder<Void> addMotions(String name, int count, int[] motions, int offset) {
+      if (bounds == null) {
+        throw new IllegalStateException("The canvas must be given before any motion");
+      }
+      Pending pending = open.get(name);
+      if (pending == null) {
+        if (declared.contains(name)) {
+          throw new IllegalStateException("Shape " + name + " has more motions than counted");
+        }
+        throw new NoSuchElementException("No such shape found under given ID.");
+      }
+      pending.builder.addMotions(name, count, motions, offset);
+      pending.remaining -= count;
+      if (pending.remaining <= 0) {
+        flush();
+      }
+      return this;
+    }
+
+    /**
+     * Writes the complete shapes at the front of the declaration order, once the canvas is known.
+     */
+    private void flush() {
+      if (bounds == null) {
+        return;
+      }
+      try {
+        while (!order.isEmpty() && order.peek().remaining <= 0) {
+          write(order.remove());
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Writes the element of a shape, or hands it to the batches written in parallel, starting the
+     * svg first if needed, and forgets the shape.
+     * @param pending the shape to write
+     * @throws IOException when the element, or an earlier batch, cannot be written
+     */
+    private void write(Pending pending) throws IOException {
+      open.remove(pending.name);
+      IModel model = pending.builder.build();
+      if (!started) {
+        out.header(model.getFrame());
+        started = true;
+      }
+      IShape shape = model.getShape(pending.name);
+      List<ITransformation> transformations = model.getTransformations().get(pending.name);
+      if (batches != null) {
+        batches.shape(shape, transformations);
+      }
+      else {
+        out.shape(shape, transformations);
+      }
+    }
+
+    /**
+     * Gives up the batches not written out yet, which is all that is left to do once the svg is
+     * complete, or when it cannot be completed.
+     */
+    private void cancel() {
+      if (batches != null) {
+        batches.cancel();
+      }
+    }
+  }
+}
@@ -1,9 +1,14 @@
 package view;
 
-import java.io.BufferedWriter;
-import java.io.IOException;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import cs5004.animator.util.ExportSink;
 import model.IModel;
 
 /**
@@ -23,10 +28,28 @@ public class TextView implements ITextView {
       System.out.println(model.toString());
     }
     else {
-      fillTextFile(createFile(filename), model);
+      try (ExportSink sink = ExportSink.open(filename, false)) {
+        writeTo(sink, model);
+        sink.commit();
+      }
+      if (!filename.equals(ExportSink.STDOUT)) {
+        System.out.println("New file created");
+      }
     }
   }
 
+  /**
+   * A method to construct a view.TextView that writes the animation description to a stream, such
+   * as an {@link ExportSink} for a file or the standard output. The stream is flushed but not
+   * closed.
+   * @param model the model to be represented as a text view
+   * @param out the stream to write to
+   * @throws IOException when the stream cannot be written
+   */
+  public TextView(IModel model, OutputStream out) throws IOException {
+    writeTo(out, model);
+  }
+
   /**
    * A method to create a file with the given name.
    * @param filename the name to be assigned to the file
@@ -53,12 +76,23 @@ public class TextView implements ITextView {
    * @param model the model that is to be added in text format to the file
    */
   public void fillTextFile(File file, IModel model) {
-    try {
-      BufferedWriter out = new BufferedWriter(new FileWriter(file, true));
-      String modelString = model.toString();
-      out.write(modelString);
+    try (OutputStream out = new FileOutputStream(file, true)) {
+      writeTo(out, model);
     } catch (IOException e) {
       throw new IllegalStateException("Could not open file");
     }
   }
+
+  /**
+   * A method to write a textual description of an animation to a stream, which is flushed but not
+   * closed.
+   * @param out the stream to write to
+   * @param model the model that is to be written in text format
+   * @throws IOException when the stream cannot be written
+   */
+  public void writeTo(OutputStream out, IModel model) throws IOException {
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    writer.write(model.toString());
+    writer.flush();
+  }
 }
@@ -1,10 +1,13 @@
 import model.ChangeColor;
+import model.FrameSnapshot;
 import model.IModel;
 import model.IShape;
 import model.ITransformation;
+import model.LazyModel;
 import model.Model;
 import model.Move;
 import model.Oval;
+import model.PackedModel;
 import model.Point;
 import model.Rectangle;
 import model.Resize;
@@ -12,15 +15,34 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import cs5004.animator.util.AnimationBinary;
+import cs5004.animator.util.AnimationBuilder;
+import cs5004.animator.util.AnimationFollower;
 import cs5004.animator.util.AnimationReader;
+import cs5004.animator.util.DeflatingStream;
+import cs5004.animator.util.ExportSink;
 import view.SVGView;
+import view.StreamingSVGView;
+import view.TextView;
 
 import static org.junit.Assert.assertEquals;
 
@@ -195,6 +217,14 @@ public class AnimationTest {
     assertEquals(33, model.getFinalTick());
   }
 
+  @Test
+  public void testGetFinalTickNoTransformations() {
+    assertEquals(0, model.getFinalTick());
+    model.addTransformation("r1", new ChangeColor(10, 20, r1.getR(), r1.getG(), r1.getB(),
+            255, 0, 0, r1));
+    assertEquals(20, model.getFinalTick());
+  }
+
   @Test
   public void testGetShapesAtTick() {
     ITransformation t1 = new Move(12, 24, o1.getLocation(), new Point(90, 70), o1);
@@ -227,8 +257,7 @@ public class AnimationTest {
     model.addTransformation("r1", t3);
     model.addTransformation("r1", t4);
     assertEquals("[Name: o1\nType: oval\nCenter: (20, 30), X radius: 18, Y radius: 13\n"
-            + "Color: (0, 0, 255), Name: r1\nType: rectangle\nMin corner: (5, 5), Width: 20, "
-            + "Height: 20\nColor: (0, 255, 255)]", model.getShapesAtTick(5).toString());
+            + "Color: (0, 0, 255)]", model.getShapesAtTick(5).toString());
   }
 
   @Test
@@ -244,9 +273,46 @@ public class AnimationTest {
     model.addTransformation("o1", t2);
     model.addTransformation("r1", t3);
     model.addTransformation("r1", t4);
+    assertEquals("Name: r1\nType: rectangle\nMin corner: (5, 5), Width: 9, "
+            + "Height: 7\nColor: (255, 0, 0)", model.getShapesAtTick(21).get(1).toString());
     assertEquals("[Name: o1\nType: oval\nCenter: (90, 70), X radius: 7, Y radius: 2\n"
-            + "Color: (0, 0, 255), Name: r1\nType: rectangle\nMin corner: (5, 5), Width: 9, "
-            + "Height: 7\nColor: (255, 0, 0)]", model.getShapesAtTick(50).toString());
+            + "Color: (0, 0, 255)]", model.getShapesAtTick(32).toString());
+    assertEquals("[]", model.getShapesAtTick(50).toString());
+  }
+
+  @Test
+  public void testGetShapesAtTickConsecutiveMoves() {
+    ITransformation t1 = new Move(0, 10, new Point(20, 30), new Point(40, 30), o1);
+    ITransformation t2 = new Move(10, 20, new Point(40, 30), new Point(40, 50), o1);
+    model.addTransformation("o1", t2);
+    model.addTransformation("o1", t1);
+    assertEquals("30, 30", model.getShapesAtTick(5).get(0).getLocation().toString());
+    assertEquals("40, 40", model.getShapesAtTick(15).get(0).getLocation().toString());
+    assertEquals("40, 44", model.getShapesAtTick(17).get(0).getLocation().toString());
+    assertEquals("40, 48", model.getShapesAtTick(19).get(0).getLocation().toString());
+  }
+
+  @Test
+  public void testEvaluate() {
+    ITransformation t1 = new Move(12, 24, o1.getLocation(), new Point(90, 70), o1);
+    ITransformation t2 = new Resize(0, 33, o1.getHeight(), o1.getWidth(), 2,
+            7, o1);
+    ITransformation t3 = new ChangeColor(10, 20, r1.getR(), r1.getG(), r1.getB(),
+            255, 0, 0, r1);
+    model.addTransformation("o1", t1);
+    model.addTransformation("o1", t2);
+    model.addTransformation("r1", t3);
+    String before = model.toString();
+    FrameSnapshot late = model.evaluate(33);
+    FrameSnapshot early = model.evaluate(15);
+    assertEquals("[Name: o1\nType: oval\nCenter: (37, 40), X radius: 14, Y radius: 9\n"
+            + "Color: (0, 0, 255), Name: r1\nType: rectangle\nMin corner: (5, 5), Width: 20, "
+            + "Height: 20\nColor: (127, 127, 127)]", early.toString());
+    assertEquals(90, late.getX(0));
+    assertEquals(1, late.size());
+    assertEquals(255, model.evaluate(20).getR(1));
+    assertEquals(early.toString(), model.evaluate(15.0).toString());
+    assertEquals(before, model.toString());
   }
 
   @Test (expected = IllegalArgumentException.class)
@@ -269,6 +335,24 @@ public class AnimationTest {
     model.addTransformation("o1", t2);
   }
 
+  @Test (expected = IllegalArgumentException.class)
+  public void testOverlappingTransformationFromBuiltId() throws IllegalArgumentException {
+    model.addTransformation("o1", new Move(10, 20, o1.getLocation(), new Point(9, 7), o1));
+    model.addTransformation("o1", new Move(30, 40, new Point(9, 7), new Point(1, 1), o1));
+    model.addTransformation(new StringBuilder("o").append(1).toString(),
+            new Move(15, 35, new Point(9, 7), new Point(1, 1), o1));
+  }
+
+  @Test
+  public void testAdjacentTransformations() {
+    model.addTransformation("o1", new Move(10, 20, o1.getLocation(), new Point(9, 7), o1));
+    model.addTransformation("o1", new Move(30, 40, new Point(9, 7), new Point(1, 1), o1));
+    model.addTransformation("o1", new Move(20, 30, new Point(9, 7), new Point(9, 7), o1));
+    model.addTransformation("o1", new Move(40, 40, new Point(1, 1), new Point(1, 1), o1));
+    model.addTransformation("o1", new Resize(15, 35, 20, 15, 2, 7, o1));
+    assertEquals(5, model.getShapesAtTick(35).get(0).getLocation().getX());
+  }
+
   @Test
   public void testReader() throws IOException {
     model.createFrame(0, 0, 400, 400);
@@ -304,6 +388,691 @@ public class AnimationTest {
             + "fill=\"freeze\" />\n</rect>\n</svg>\n", content);
   }
 
+  @Test
+  public void testPackedModelMatchesModel() {
+    AnimationBuilder<IModel> packedBuilder = new PackedModel.Builder();
+    AnimationBuilder<IModel> builder = new Model.Builder();
+    for (AnimationBuilder<IModel> b : Arrays.asList(packedBuilder, builder)) {
+      b.setBounds(200, 70, 360, 360);
+      b.declareShape("R", "rectangle");
+      b.addMotion("R", 1, 200, 200, 50, 100, 255, 0, 0, 10, 200, 200, 50, 100, 255, 0, 0);
+      b.addMotion("R", 10, 200, 200, 50, 100, 255, 0, 0, 50, 300, 300, 50, 100, 255, 0, 0);
+      b.addMotion("R", 51, 300, 300, 50, 100, 255, 0, 0, 70, 300, 300, 25, 100, 255, 0, 0);
+      b.declareShape("C", "ellipse");
+      b.addMotion("C", 6, 440, 70, 120, 60, 0, 0, 255, 20, 440, 70, 120, 60, 0, 0, 255);
+      b.addMotion("C", 20, 440, 70, 120, 60, 0, 0, 255, 50, 440, 250, 120, 60, 0, 170, 85);
+      b.addMotion("C", 50, 440, 250, 120, 60, 0, 170, 85, 70, 440, 370, 110, 50, 0, 255, 0);
+    }
+    IModel packed = packedBuilder.build();
+    IModel expected = builder.build();
+    assertEquals(expected.toString(), packed.toString());
+    assertEquals(expected.getFinalTick(), packed.getFinalTick());
+    for (int tick = 0; tick < expected.getFinalTick(); tick += 3) {
+      assertEquals(expected.getShapesAtTick(tick).toString(),
+              packed.getShapesAtTick(tick).toString());
+      assertEquals(expected.evaluate(tick).toString(), packed.evaluate(tick).toString());
+    }
+    Iterator<FrameSnapshot> frames = packed.frames(0, expected.getFinalTick(), 1, true);
+    for (int tick = 0; tick < expected.getFinalTick(); tick++) {
+      assertEquals(expected.evaluate(tick).toString(), frames.next().toString());
+    }
+  }
+
+  @Test
+  public void testParallelEvaluationMatchesSequential() {
+    for (AnimationBuilder<IModel> b : Arrays.<AnimationBuilder<IModel>>asList(
+            new Model.Builder(), new PackedModel.Builder())) {
+      b.setBounds(0, 0, 500, 500);
+      for (int i = 0; i < 500; i++) {
+        b.declareShape("S" + i, i % 2 == 0 ? "rectangle" : "ellipse");
+        b.addMotion("S" + i, i % 7, i, 0, 10, 10, 0, 0, 0, 40 + i % 13, 0, i, 20, 5, i % 256,
+                0, 0);
+      }
+      IModel sequential = b.build();
+      String[] frames = new String[50];
+      String[] snapshots = new String[50];
+      for (int tick = 0; tick < 50; tick++) {
+        frames[tick] = sequential.getShapesAtTick(tick).toString();
+        snapshots[tick] = sequential.evaluate(tick + 0.5).toString();
+      }
+      sequential.setParallelThreshold(1);
+      for (int tick = 0; tick < 50; tick++) {
+        assertEquals(frames[tick], sequential.getShapesAtTick(tick).toString());
+        assertEquals(snapshots[tick], sequential.evaluate(tick + 0.5).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testFramesMatchEvaluate() {
+    model.addTransformation("r1", new Move(25, 30, new Point(5, 5), new Point(50, 15), r1));
+    Iterator<FrameSnapshot> frames = model.frames(0, 50, 3);
+    for (int tick = 0; tick < 50; tick += 3) {
+      assertEquals(model.evaluate(tick).toString(), frames.next().toString());
+    }
+    assertEquals(false, frames.hasNext());
+    frames = model.frames(4, 40, 5, true);
+    for (int tick = 4; tick < 40; tick += 5) {
+      assertEquals(model.evaluate(tick).toString(), frames.next().toString());
+    }
+    assertEquals(false, frames.hasNext());
+  }
+
+  @Test
+  public void testShortLivedShapes() {
+    for (AnimationBuilder<IModel> b : Arrays.<AnimationBuilder<IModel>>asList(
+            new Model.Builder(), new PackedModel.Builder())) {
+      b.setBounds(0, 0, 500, 500);
+      b.declareShape("still", "rectangle");
+      for (int i = 0; i < 300; i++) {
+        b.declareShape("S" + i, "ellipse");
+        b.addMotion("S" + i, 2 * i, i, 0, 10, 10, 0, 0, 0, 2 * i + 5, 0, i, 20, 5, i % 256, 0,
+                0);
+      }
+      IModel animation = b.build();
+      Iterator<FrameSnapshot> frames = animation.frames(0, 610, 1, true);
+      for (int tick = 0; tick < 610; tick++) {
+        int live = 1;
+        for (int i = 0; i < 300; i++) {
+          if (2 * i <= tick && tick <= 2 * i + 5) {
+            live++;
+          }
+        }
+        assertEquals(live, animation.getShapesAtTick(tick).size());
+        assertEquals(animation.evaluate(tick).toString(), frames.next().toString());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFramesInvalidStep() {
+    model.frames(0, 10, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelThresholdNotPositive() {
+    model.setParallelThreshold(0);
+  }
+
+  @Test
+  public void testParseCommentsAndSigns() {
+    IModel parsed = AnimationReader.parseFile(new StringReader(
+            "# a scene\ncanvas 0 0 100 100\nshape R rectangle#trailing comment\n"
+                    + "motion R 1 -5 +5 10 10 0 0 0   5 -5 5 10 10 0 0 0 # hold\r\n"
+                    + "  motion\tR 5 -5 5 10 10 0 0 0\n5 20 5 10 10 0 0 0\n"),
+            new Model.Builder());
+    assertEquals("[Name: R\nType: rectangle\nMin corner: (-5, 5), Width: 10, Height: 10\n"
+            + "Color: (0, 0, 0)]", parsed.getShapesAtTick(4).toString());
+    assertEquals(5, parsed.getFinalTick());
+  }
+
+  @Test
+  public void testParseErrors() {
+    String[] inputs = {"canvas 0 0 100", "canvas 0 0 100 1x0", "shape R",
+        "canvas 0 0 9 9 shape R rectangle motion R 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 "
+            + "99999999999", "scene 1 2 # rest\nmotion"};
+    String[] messages = {"Canvas: expected integer for height, but no more input available",
+        "Canvas: expected integer for height, got: 1x0",
+        "Shape: Expected a type, but no more input available",
+        "Motion: expected integer for final blue value, got: 99999999999",
+        "Unexpected keyword: scene 1 2 # rest"};
+    for (int i = 0; i < inputs.length; i++) {
+      try {
+        AnimationReader.parseFile(new StringReader(inputs[i]), new Model.Builder());
+        assertEquals(messages[i], "no exception");
+      } catch (IllegalStateException e) {
+        assertEquals(messages[i], e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testParsePath() throws IOException {
+    Path file = Files.createTempFile("animation", ".txt");
+    try {
+      IModel mapped = AnimationReader.parsePath(Path.of("smalldemo.txt"), new Model.Builder());
+      IModel read = AnimationReader.parseFile(new BufferedReader(new FileReader("smalldemo.txt")),
+              new Model.Builder());
+      assertEquals(read.toString(), mapped.toString());
+      Files.writeString(file, "canvas 0 0 9 9\n# comment\nshape R rectangle\n  motion R 1 2");
+      try {
+        AnimationReader.parsePath(file, new Model.Builder());
+        assertEquals("an exception", "no exception");
+      } catch (IllegalStateException e) {
+        assertEquals("Motion: expected integer for initial y-coordinate, but no more input "
+                + "available (line 4, byte 56)", e.getMessage());
+      }
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testParsePathBuilderErrors() throws IOException {
+    Path file = Files.createTempFile("animation", ".txt");
+    try {
+      StringBuilder text = new StringBuilder("canvas 0 0 500 500\nshape R rectangle\n");
+      for (int t = 0; t < 5000; t++) {
+        text.append("motion R ").append(t).append(" 10 20 30 40 1 2 3 ").append(t + 1)
+                .append(" 10 20 30 40 1 2 3\n");
+      }
+      int offset = text.length();
+      text.append("motion Q 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16\n");
+      for (int t = 0; t < 100; t++) {
+        text.append("shape S").append(t).append(" ellipse\n");
+      }
+      Files.writeString(file, text);
+      try {
+        AnimationReader.parsePath(file, new Model.Builder());
+        assertEquals("an exception", "no exception");
+      } catch (NoSuchElementException e) {
+        assertEquals("No such shape found under given ID. (line 5003, byte " + offset + ")",
+                e.getMessage());
+      }
+      Files.writeString(file, "canvas 0 0 9 9\nshape R rectangle\n"
+              + "motion R 1 0 0 1 1 0 0 0 10 5 5 1 1 0 0 0\n"
+              + "motion R 5 0 0 1 1 0 0 0 10 5 5 1 1 0 0 0\nmotion R 10 2");
+      try {
+        AnimationReader.parsePath(file, new Model.Builder());
+        assertEquals("an exception", "no exception");
+      } catch (IllegalStateException e) {
+        assertEquals("Motion: expected integer for initial y-coordinate, but no more input "
+                + "available (line 5, byte 129)", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+      }
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testParsePathParallel() throws IOException {
+    Path file = Files.createTempFile("animation", ".txt");
+    try {
+      StringBuilder text = new StringBuilder("canvas 0 0 500 500\nshape R rectangle\n");
+      for (int t = 0; t < 100000; t++) {
+        text.append("motion R ").append(t).append(" 10 20 30 40 1 2 3\n  ").append(t + 1)
+                .append(" 10 20 30 40 1 2 3 # two lines\n");
+      }
+      Files.writeString(file, text);
+      assertEquals(AnimationReader.parsePath(file, new Model.Builder()).toString(),
+              AnimationReader.parsePathParallel(file, new Model.Builder()).toString());
+      Files.writeString(file, text.append("motion R 1 2"));
+      String message = "";
+      try {
+        AnimationReader.parsePath(file, new Model.Builder());
+      } catch (IllegalStateException e) {
+        message = e.getMessage();
+      }
+      try {
+        AnimationReader.parsePathParallel(file, new Model.Builder());
+        assertEquals("an exception", "no exception");
+      } catch (IllegalStateException e) {
+        assertEquals(message, e.getMessage());
+      }
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testAddMotions() {
+    int[] motions = {-1, 1, 10, 20, 30, 40, 50, 60, 70, 10, 20, 30, 40, 50, 60, 70, 5,
+        10, 20, 30, 40, 50, 60, 70, 5, 15, 25, 30, 40, 80, 90, 100, 5};
+    AnimationBuilder<IModel> one = new Model.Builder().setBounds(0, 0, 100, 100)
+            .declareShape("R", "rectangle");
+    one.addMotion("R", 1, 10, 20, 30, 40, 50, 60, 70, 10, 20, 30, 40, 50, 60, 70, 5);
+    one.addMotion("R", 10, 20, 30, 40, 50, 60, 70, 5, 15, 25, 30, 40, 80, 90, 100, 5);
+    AnimationBuilder<IModel> block = new Model.Builder().setBounds(0, 0, 100, 100)
+            .declareShape("R", "rectangle");
+    block.addMotions("R", 2, motions, 1);
+    assertEquals(one.build().toString(), block.build().toString());
+    try {
+      block.addMotions("R", 3, motions, 1);
+      assertEquals("an exception", "no exception");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The motions do not fit in the given array", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws IOException {
+    Path file = Files.createTempFile("animation", ".anim");
+    try {
+      AnimationBinary.convert(Path.of("smalldemo.txt"), file);
+      assertEquals(true, AnimationBinary.isBinary(file));
+      assertEquals(false, AnimationBinary.isBinary(Path.of("smalldemo.txt")));
+      assertEquals(AnimationReader.parsePath(Path.of("smalldemo.txt"), new Model.Builder())
+              .toString(), AnimationBinary.read(file, new Model.Builder()).toString());
+      IModel only = AnimationBinary.read(file, new Model.Builder(), Arrays.asList("C"));
+      assertEquals(1, only.getAnimation().size());
+      assertEquals(4, only.getTransformations().get("C").size());
+    }
+    finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testStreamingSVG() throws IOException {
+    Path dir = Files.createTempDirectory("svg");
+    Path text = dir.resolve("interleaved.txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\nshape C ellipse\n"
+            + "shape E rectangle\nmotion C 1 50 60 5 5 0 0 255 10 50 60 5 5 0 0 255\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\n"
+            + "motion C 10 50 60 5 5 0 0 255 20 70 80 9 9 0 255 0\n"
+            + "motion R 10 60 40 10 20 255 0 0 30 60 40 20 20 255 0 0\n");
+    for (Path input : new Path[]{Path.of("smalldemo.txt"), text}) {
+      Path model = dir.resolve("model.svg");
+      Path streamed = dir.resolve("streamed.svg");
+      new SVGView(AnimationReader.parsePath(input, new Model.Builder()), model.toString(), 20);
+      new StreamingSVGView(input, streamed.toString(), 20);
+      assertEquals(Files.readString(model), Files.readString(streamed));
+      Path parallel = dir.resolve("parallel.svg");
+      new SVGView(AnimationReader.parsePath(input, new Model.Builder()), parallel.toString(), 20,
+              true);
+      assertEquals(Files.readString(model), Files.readString(parallel));
+      Files.delete(model);
+      Files.delete(streamed);
+      Files.delete(parallel);
+    }
+    Files.delete(text);
+    Files.delete(dir);
+  }
+
+  @Test
+  public void testLazyModel() throws IOException {
+    Path dir = Files.createTempDirectory("lazy");
+    Path text = dir.resolve("interleaved.txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\nshape C ellipse\n"
+            + "shape E rectangle\nmotion C 1 50 60 5 5 0 0 255 10 50 60 5 5 0 0 255\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\n"
+            + "motion C 10 50 60 5 5 0 0 255 20 70 80 9 9 0 255 0\n"
+            + "motion R 10 60 40 10 20 255 0 0 30 60 40 20 20 255 0 0\n");
+    for (Path input : new Path[]{Path.of("smalldemo.txt"), text}) {
+      for (int cap : new int[]{1, 1000}) {
+        IModel eager = AnimationReader.parsePath(input, new Model.Builder());
+        IModel lazy = new LazyModel(input, cap);
+        assertEquals(eager.getFinalTick(), lazy.getFinalTick());
+        Iterator<FrameSnapshot> expected = eager.frames(0, eager.getFinalTick() + 1, 1);
+        Iterator<FrameSnapshot> actual = lazy.frames(0, eager.getFinalTick() + 1, 1);
+        for (int tick = 0; tick <= eager.getFinalTick(); tick++) {
+          assertEquals(eager.getShapesAtTick(tick).toString(),
+                  lazy.getShapesAtTick(tick).toString());
+          assertEquals(eager.evaluate(tick + 0.5).toString(),
+                  lazy.evaluate(tick + 0.5).toString());
+          assertEquals(expected.next().toString(), actual.next().toString());
+        }
+        assertEquals(eager.toString(), lazy.toString());
+      }
+    }
+    Files.delete(text);
+    Files.delete(dir);
+  }
+
+  @Test
+  public void testLazyModelEdits() throws IOException {
+    Path text = Files.createTempFile("edits", ".txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\nshape C ellipse\n"
+            + "shape E rectangle\nmotion C 1 50 60 5 5 0 0 255 10 50 60 5 5 0 0 255\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\n"
+            + "motion C 10 50 60 5 5 0 0 255 20 70 80 9 9 0 255 0\n"
+            + "motion R 10 60 40 10 20 255 0 0 30 60 40 20 20 255 0 0\n");
+    IModel eager = AnimationReader.parsePath(text, new Model.Builder());
+    IModel lazy = new LazyModel(text, 1);
+    for (IModel animation : new IModel[]{eager, lazy}) {
+      animation.addTransformation("R", new Move(30, 40, new Point(60, 40), new Point(100, 100),
+              "R"));
+      animation.addTransformation("E", new Move(2, 8, new Point(0, 0), new Point(10, 10), "E"));
+      animation.addShape("N", new Oval(20, 30, 20, 15, 0, 0, 255));
+      animation.addTransformation("N", new ChangeColor(5, 45, 0, 0, 255, 255, 0, 0, "N"));
+    }
+    assertEquals(45, lazy.getFinalTick());
+    for (int tick = 0; tick <= eager.getFinalTick(); tick++) {
+      assertEquals(eager.getShapesAtTick(tick).toString(),
+              lazy.getShapesAtTick(tick).toString());
+      assertEquals(eager.evaluate(tick + 0.5).toString(), lazy.evaluate(tick + 0.5).toString());
+    }
+    assertEquals(eager.toString(), lazy.toString());
+    Files.delete(text);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testLazyModelOverlappingEdit() throws IOException {
+    Path text = Files.createTempFile("edits", ".txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\n");
+    try {
+      new LazyModel(text, 1).addTransformation("R", new Move(5, 12, new Point(40, 40),
+              new Point(0, 0), "R"));
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testLazyModelDuplicateShape() throws IOException {
+    Path text = Files.createTempFile("edits", ".txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\n");
+    try {
+      new LazyModel(text, 1).addShape("R", new Rectangle(5, 5, 20, 20, 0, 255, 255));
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testLazyModelMovedCanvas() throws IOException {
+    Path text = Files.createTempFile("moved", ".txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\n"
+            + "canvas 0 0 300 300\n");
+    try {
+      new LazyModel(text, 10);
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test
+  public void testFollow() throws IOException {
+    Path text = Files.createTempFile("follow", ".txt");
+    String[] parts = {"canvas 10 20 300 300\nshape R rectangle\nshape C ellipse\n"
+            + "motion C 1 50 60 5 5 0 0 255 10 50 60 5 5 0 0 255\nmotion R 1 30 40",
+        " 10 20 255 0 0 10 60 40 10 20 255 0 0\nmotion C 10 50 60 5 5 0 0 255\n",
+        "20 70 80 9 9 0 255 0\nmotion R 10 60 40 10 20 255 0 0 30 60 40 20 20 255 0 0\n"};
+    int[] finalTicks = {10, 10, 30};
+    AnimationBuilder<IModel> builder = new Model.Builder();
+    AnimationFollower<IModel> follower = new AnimationFollower<>(text, builder);
+    Files.writeString(text, "");
+    assertEquals(0, follower.poll());
+    for (int i = 0; i < parts.length; i++) {
+      Files.writeString(text, parts[i], StandardOpenOption.APPEND);
+      follower.poll();
+      follower.apply();
+      assertEquals(finalTicks[i], builder.build().getFinalTick());
+    }
+    assertEquals(AnimationReader.parsePath(text, new Model.Builder()).toString(),
+            builder.build().toString());
+    Files.delete(text);
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testFollowMalformed() throws IOException {
+    Path text = Files.createTempFile("follow", ".txt");
+    Files.writeString(text, "canvas 10 20 300 300\nshape R rectangle\n"
+            + "motion R 30 60 40 20 20 255 0 0 x\n");
+    try {
+      new AnimationFollower<>(text, new Model.Builder()).poll();
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test
+  public void testCompressed() throws IOException {
+    Path gzip = Files.createTempFile("smalldemo", ".txt.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+      out.write(Files.readAllBytes(Path.of("smalldemo.txt")));
+    }
+    assertEquals(true, AnimationReader.isCompressed(gzip));
+    assertEquals(false, AnimationReader.isCompressed(Path.of("smalldemo.txt")));
+    String expected = AnimationReader.parsePath(Path.of("smalldemo.txt"),
+            new Model.Builder()).toString();
+    assertEquals(expected, AnimationReader.parsePath(gzip, new Model.Builder()).toString());
+    assertEquals(expected,
+            AnimationReader.parsePathParallel(gzip, new Model.Builder()).toString());
+    assertEquals(AnimationReader.countMotions(Path.of("smalldemo.txt")),
+            AnimationReader.countMotions(gzip));
+    Files.delete(gzip);
+  }
+
+  @Test
+  public void testSceneGenerator() throws IOException {
+    StringBuilder grouped = new StringBuilder();
+    StringBuilder interleaved = new StringBuilder();
+    new SceneGenerator(12, 30, false, 0.25, 7).write(grouped);
+    new SceneGenerator(12, 30, true, 0.25, 7).write(interleaved);
+    StringBuilder again = new StringBuilder();
+    new SceneGenerator(12, 30, true, 0.25, 7).write(again);
+    assertEquals(interleaved.toString(), again.toString());
+    IModel model = AnimationReader.parseFile(new StringReader(grouped.toString()),
+            new Model.Builder());
+    assertEquals(model.toString(), AnimationReader.parseFile(
+            new StringReader(interleaved.toString()), new Model.Builder()).toString());
+    int motions = 0;
+    for (String line : grouped.toString().split("\n")) {
+      if (line.startsWith("motion ")) {
+        motions++;
+      }
+    }
+    assertEquals(new SceneGenerator(12, 30, false, 0.25, 7).getMotionCount(), motions);
+    assertEquals(12, model.getAnimation().size());
+  }
+
+  @Test
+  public void testSVGTimes() throws IOException {
+    AnimationBuilder<IModel> builder = new Model.Builder();
+    builder.setBounds(0, 0, 100, 100).declareShape("R", "rectangle");
+    for (int t = 0; t < 600; t += 3) {
+      builder.addMotion("R", t, t % 2, 0, 5, 5, 0, 0, 0, t + 3, (t + 3) % 2, 0, 5, 5, 0, 0, 0);
+    }
+    IModel model = builder.build();
+    for (double speed : new double[]{0.3, 1.5, 8, 40}) {
+      Path svg = Files.createTempFile("times", ".svg");
+      Files.delete(svg);
+      new SVGView(model, svg.toString(), speed);
+      StringBuilder expected = new StringBuilder();
+      for (int t = 0; t < 600; t += 3) {
+        expected.append(String.format("begin=\"%.2fs\" dur=\"%.2fs\"\n", t / speed, 3 / speed));
+      }
+      StringBuilder actual = new StringBuilder();
+      for (String line : Files.readAllLines(svg)) {
+        if (line.contains("attributeName=\"x\"")) {
+          actual.append(line, line.indexOf("begin"), line.indexOf(" attributeName")).append('\n');
+        }
+      }
+      assertEquals(expected.toString(), actual.toString());
+      Files.delete(svg);
+    }
+  }
+
+  @Test
+  public void testCompactSVG() throws IOException {
+    Path dir = Files.createTempDirectory("compact");
+    Path text = dir.resolve("gaps.txt");
+    Files.writeString(text, "canvas 0 0 100 100\nshape R rectangle\n"
+            + "motion R 10 0 0 10 10 255 0 0 20 10 0 10 10 255 0 0\n"
+            + "motion R 20 10 0 10 10 255 0 0 30 10 0 10 10 255 0 0\n"
+            + "motion R 30 10 0 10 10 255 0 0 50 30 0 20 10 255 0 0\n"
+            + "motion R 50 30 0 20 10 255 0 0 60 30 0 20 10 0 0 255\n");
+    Path model = dir.resolve("model.svg");
+    new SVGView(AnimationReader.parsePath(text, new Model.Builder()), model.toString(), 10,
+            false, true);
+    assertEquals("<svg width=\"100\" height=\"100\" version=\"1.1\" "
+            + "xmlns=\"http://www.w3.org/2000/svg\">\n"
+            + "<rect id=\"R\" x=\"0\" y=\"0\" width=\"10\" height=\"10\" fill=\"rgb(255,0,0)\" "
+            + "visibility=\"visible\" >\n"
+            + "\t<animate attributeType=\"xml\" begin=\"1.00s\" dur=\"4.00s\" attributeName=\"x\" "
+            + "values=\"0;10;10;30\" keyTimes=\"0;0.25;0.5;1\" fill=\"freeze\" />\n"
+            + "\t<animate attributeType=\"xml\" begin=\"1.00s\" dur=\"4.00s\" attributeName=\"y\" "
+            + "values=\"0;0;0;0\" keyTimes=\"0;0.25;0.5;1\" fill=\"freeze\" />\n"
+            + "\t<animate attributeType=\"xml\" begin=\"5.00s\" dur=\"1.00s\" "
+            + "attributeName=\"fill\" values=\"rgb(255,0,0);rgb(0,0,255)\" keyTimes=\"0;1\" "
+            + "fill=\"freeze\" />\n"
+            + "\t<animate attributeType=\"xml\" begin=\"3.00s\" dur=\"2.00s\" "
+            + "attributeName=\"width\" values=\"10;20\" keyTimes=\"0;1\" fill=\"freeze\" />\n"
+            + "\t<animate attributeType=\"xml\" begin=\"3.00s\" dur=\"2.00s\" "
+            + "attributeName=\"height\" values=\"10;10\" keyTimes=\"0;1\" fill=\"freeze\" />\n"
+            + "</rect>\n</svg>", Files.readString(model).trim());
+    for (Path input : new Path[]{Path.of("smalldemo.txt"), text}) {
+      Path compact = dir.resolve("compact.svg");
+      Path full = dir.resolve("full.svg");
+      Path streamed = dir.resolve("streamed.svg");
+      Path parallel = dir.resolve("parallel.svg");
+      new SVGView(AnimationReader.parsePath(input, new Model.Builder()), compact.toString(), 20,
+              false, true);
+      new SVGView(AnimationReader.parsePath(input, new Model.Builder()), full.toString(), 20);
+      new StreamingSVGView(input, streamed.toString(), 20, true);
+      new SVGView(AnimationReader.parsePath(input, new Model.Builder()), parallel.toString(), 20,
+              true, true);
+      assertEquals(Files.readString(compact), Files.readString(streamed));
+      assertEquals(Files.readString(compact), Files.readString(parallel));
+      assertEquals(true, Files.size(compact) < Files.size(full));
+      Files.delete(compact);
+      Files.delete(full);
+      Files.delete(streamed);
+      Files.delete(parallel);
+    }
+    Files.delete(model);
+    Files.delete(text);
+    Files.delete(dir);
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testStreamingSVGNoCanvas() throws IOException {
+    Path text = Files.createTempFile("nocanvas", ".txt");
+    Files.writeString(text, "shape R rectangle\nshape C ellipse\n");
+    try {
+      new StreamingSVGView(text, new ByteArrayOutputStream(), 20, false, false);
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testStreamingSVGMotionBeforeCanvas() throws IOException {
+    Path text = Files.createTempFile("nocanvas", ".txt");
+    Files.writeString(text, "shape R rectangle\n"
+            + "motion R 1 30 40 10 20 255 0 0 10 60 40 10 20 255 0 0\ncanvas 0 0 300 300\n");
+    try {
+      new StreamingSVGView(text, new ByteArrayOutputStream(), 20, false, false);
+    } finally {
+      Files.delete(text);
+    }
+  }
+
+  @Test
+  public void testStreamingSVGParallel() throws IOException {
+    Path text = Files.createTempFile("many", ".txt");
+    StringBuilder file = new StringBuilder("canvas 0 0 400 300\n");
+    for (int i = 0; i < 2000; i += 2) {
+      file.append("shape S").append(i).append(" rectangle\n");
+      file.append("shape S").append(i + 1).append(" ellipse\n");
+      for (int k = 0; k < 6; k++) {
+        for (int j = i; j < i + 2; j++) {
+          file.append("motion S").append(j);
+          for (int at = k; at < k + 2; at++) {
+            file.append(' ').append(1 + at * 5).append(' ').append((j + 7 * at) % 400)
+                    .append(' ').append((3 * j + at) % 300).append(' ').append(5 + at)
+                    .append(" 10 ").append(j % 256).append(' ').append(at * 40).append(" 0");
+          }
+          file.append('\n');
+        }
+      }
+    }
+    Files.writeString(text, file.toString());
+    for (boolean compact : new boolean[]{false, true}) {
+      ByteArrayOutputStream model = new ByteArrayOutputStream();
+      ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+      new SVGView(AnimationReader.parsePath(text, new Model.Builder()), model, 20, false,
+              compact);
+      new StreamingSVGView(text, streamed, 20, true, compact);
+      assertEquals(model.toString(StandardCharsets.UTF_8),
+              streamed.toString(StandardCharsets.UTF_8));
+    }
+    Files.delete(text);
+  }
+
+  @Test
+  public void testExportSink() throws IOException {
+    Path dir = Files.createTempDirectory("export");
+    Path svg = dir.resolve("out.svg");
+    IModel demo = AnimationReader.parsePath(Path.of("smalldemo.txt"), new Model.Builder());
+    new SVGView(demo, svg.toString(), 20);
+    String expected = Files.readString(svg);
+    try (ExportSink sink = ExportSink.open(svg.toString(), true)) {
+      new SVGView(demo, sink, 20, false, false);
+      assertEquals(expected, Files.readString(svg));
+      sink.commit();
+    }
+    assertEquals(expected, Files.readString(svg));
+    try (ExportSink sink = ExportSink.open(svg.toString(), true)) {
+      new TextView(demo, sink);
+    }
+    assertEquals(expected, Files.readString(svg));
+    try (ExportSink sink = ExportSink.open(svg.toString(), true)) {
+      new TextView(demo, sink);
+      sink.commit();
+    }
+    assertEquals(demo.toString(), Files.readString(svg));
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(1, files.count());
+    }
+    Files.delete(svg);
+    Files.delete(dir);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testExportSinkExists() throws IOException {
+    Path file = Files.createTempFile("export", ".svg");
+    try {
+      ExportSink.open(file.toString(), false);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testDeflatingStream() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      text.append("motion S").append(i % 97).append(' ').append(i).append('\n');
+    }
+    byte[] expected = text.toString().getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflatingStream out = new DeflatingStream(compressed)) {
+      out.write(expected, 0, 10);
+      out.write(expected[10]);
+      out.write(expected, 11, expected.length - 11);
+    }
+    try (InputStream in = new GZIPInputStream(
+            new ByteArrayInputStream(compressed.toByteArray()))) {
+      assertEquals(Arrays.toString(expected), Arrays.toString(in.readAllBytes()));
+    }
+  }
+
+  @Test (expected = IOException.class)
+  public void testDeflatingStreamFailure() throws IOException {
+    OutputStream failing = new OutputStream() {
+      private int written = 0;
+
+      @Override
+      public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        written += len;
+        if (written > 1000) {
+          throw new IllegalStateException("Full");
+        }
+      }
+    };
+    Random random = new Random(1);
+    byte[] noise = new byte[1 << 16];
+    try (DeflatingStream out = new DeflatingStream(failing)) {
+      for (int i = 0; i < 64; i++) {
+        random.nextBytes(noise);
+        out.write(noise, 0, noise.length);
+      }
+    }
+  }
+
   @Test
   public void testText() throws IOException {
     BufferedReader reader = new BufferedReader(new FileReader("smalldemo.txt"));
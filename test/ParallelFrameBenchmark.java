@@ -0,0 +1,83 @@
+import model.IModel;
+import model.Model;
+import model.PackedModel;
+
+import java.util.Arrays;
+
+import cs5004.animator.util.AnimationBuilder;
+
+/**
+ * A benchmark to find the number of shapes at which evaluating a frame in parallel becomes faster
+ * than evaluating it on one thread. For growing numbers of shapes it times a sweep of frames
+ * evaluated sequentially and in parallel, for both model backends, and prints the time per frame
+ * of each. The crossover is the first row where the parallel time drops below the sequential one,
+ * and is a good value to pass to {@link IModel#setParallelThreshold(int)} on the same machine.
+ */
+public class ParallelFrameBenchmark {
+  private static final int MOTIONS = 20;
+  private static final int TICKS = 200;
+
+  /**
+   * A method to run the benchmark.
+   * @param args optionally, the largest number of shapes to try
+   */
+  public static void main(String[] args) {
+    int max = args.length > 0 ? Integer.parseInt(args[0]) : 65536;
+    System.out.printf("cores: %d%n", Runtime.getRuntime().availableProcessors());
+    System.out.printf("%-8s %8s %14s %14s%n", "backend", "shapes", "sequential us", "parallel us");
+    for (int shapes = 16; shapes <= max; shapes *= 4) {
+      for (String backend : Arrays.asList("default", "packed")) {
+        IModel model = build(backend, shapes);
+        double sequential = time(model);
+        model.setParallelThreshold(1);
+        double parallel = time(model);
+        System.out.printf("%-8s %8d %14.1f %14.1f%n", backend, shapes, sequential, parallel);
+      }
+    }
+  }
+
+  /**
+   * A method to build a model in which every shape moves, resizes and changes color through the
+   * whole animation.
+   * @param backend the model to build, either default or packed
+   * @param shapes the number of shapes in the model
+   * @return the built model
+   */
+  private static IModel build(String backend, int shapes) {
+    AnimationBuilder<IModel> b = backend.equals("packed")
+            ? new PackedModel.Builder() : new Model.Builder();
+    b.setBounds(0, 0, 1000, 1000);
+    int length = TICKS / MOTIONS;
+    for (int i = 0; i < shapes; i++) {
+      String name = "S" + i;
+      b.declareShape(name, i % 2 == 0 ? "rectangle" : "ellipse");
+      for (int m = 0; m < MOTIONS; m++) {
+        int t1 = m * length;
+        b.addMotion(name, t1, m, i % 1000, 10 + m, 10, m, 0, 0,
+                t1 + length, m + 1, i % 1000, 11 + m, 10, m + 1, 0, 0);
+      }
+    }
+    return b.build();
+  }
+
+  /**
+   * A method to time a sweep of frames after a warm up sweep.
+   * @param model the model to evaluate
+   * @return the average time to evaluate one frame, in microseconds
+   */
+  private static double time(IModel model) {
+    for (int tick = 0; tick < TICKS; tick++) {
+      model.evaluate(tick);
+    }
+    long start = System.nanoTime();
+    int rounds = 0;
+    do {
+      for (int tick = 0; tick < TICKS; tick++) {
+        model.evaluate(tick);
+      }
+      rounds++;
+    }
+    while (System.nanoTime() - start < 200_000_000L);
+    return (System.nanoTime() - start) / 1000.0 / (rounds * TICKS);
+  }
+}
@@ -0,0 +1,191 @@
+import model.Model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cs5004.animator.util.AnimationBuilder;
+import cs5004.animator.util.AnimationReader;
+
+/**
+ * A benchmark of how fast animation files are read. For each size it generates a scene with
+ * {@link SceneGenerator}, then times each way of reading a file into a builder that only counts
+ * what it is given, which measures the reader alone, and into {@link Model.Builder}, which measures
+ * loading a model. Each row is the best of several runs after a warm up run, reported in megabytes
+ * and motions per second. A model of the largest scenes may not fit in the heap, in which case its
+ * row is marked as out of memory.
+ */
+public class ParserBenchmark {
+  private static final int MOTIONS = 100;
+  private static final long RUN_NANOS = 2_000_000_000L;
+
+  /**
+   * A method to run the benchmark.
+   * @param args optionally, the sizes of the scenes to generate in megabytes, which default to 1,
+   *          8, 64 and 1024
+   * @throws IOException when a scene cannot be written or read
+   */
+  public static void main(String[] args) throws IOException {
+    String[] sizes = args.length > 0 ? args : new String[]{"1", "8", "64", "1024"};
+    System.out.printf("cores: %d, heap: %d MB%n", Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().maxMemory() >> 20);
+    System.out.printf("%8s %-12s %-6s %10s %12s%n", "MB", "reader", "into", "MB/s",
+            "motions/s");
+    for (String size : sizes) {
+      long target = Long.parseLong(size) << 20;
+      SceneGenerator generator = new SceneGenerator(shapesFor(target), MOTIONS, true, 0.5, 1);
+      Path scene = Files.createTempFile("scene", ".txt");
+      try {
+        long bytes = generator.write(scene);
+        for (String reader : new String[]{"parseFile", "parsePath", "parallel"}) {
+          for (String into : new String[]{"count", "model"}) {
+            report(bytes, generator.getMotionCount(), reader, into, scene);
+          }
+        }
+      } finally {
+        Files.delete(scene);
+      }
+    }
+  }
+
+  /**
+   * A method to find the number of shapes that makes a scene of about the given size, from the
+   * size of a small scene.
+   * @param target the size of the scene in bytes
+   * @return the number of shapes to generate
+   * @throws IOException never, since the sample is written to memory
+   */
+  private static int shapesFor(long target) throws IOException {
+    StringBuilder sample = new StringBuilder();
+    new SceneGenerator(100, MOTIONS, true, 0.5, 1).write(sample);
+    return (int) Math.max(1, target * 100 / sample.length());
+  }
+
+  /**
+   * A method to time one way of reading a scene and print its row.
+   * @param bytes the size of the scene file
+   * @param motions the number of motions in the scene
+   * @param reader the way of reading the file
+   * @param into the builder to read into, either count or model
+   * @param scene the scene file
+   * @throws IOException when the file cannot be read
+   */
+  private static void report(long bytes, long motions, String reader, String into, Path scene)
+          throws IOException {
+    String row = String.format("%8.1f %-12s %-6s", bytes / 1048576.0, reader, into);
+    try {
+      read(reader, into, scene);
+      long best = Long.MAX_VALUE;
+      long start = System.nanoTime();
+      int runs = 0;
+      do {
+        long t = System.nanoTime();
+        read(reader, into, scene);
+        best = Math.min(best, System.nanoTime() - t);
+        runs++;
+      }
+      while (runs < 3 || System.nanoTime() - start < RUN_NANOS);
+      double seconds = best / 1e9;
+      System.out.printf("%s %10.1f %12.0f%n", row, bytes / 1048576.0 / seconds,
+              motions / seconds);
+    } catch (OutOfMemoryError e) {
+      System.out.printf("%s %23s%n", row, "out of memory");
+    }
+  }
+
+  /**
+   * A method to read a scene once.
+   * @param reader the way of reading the file: parseFile, parsePath or parallel
+   * @param into the builder to read into, either count or model
+   * @param scene the scene file
+   * @return the result of the builder, so that the read cannot be optimized away
+   * @throws IOException when the file cannot be read
+   */
+  private static Object read(String reader, String into, Path scene) throws IOException {
+    AnimationBuilder<?> builder = into.equals("model") ? new Model.Builder() : new Counter();
+    if (reader.equals("parsePath")) {
+      return AnimationReader.parsePath(scene, builder);
+    }
+    else if (reader.equals("parallel")) {
+      return AnimationReader.parsePathParallel(scene, builder);
+    }
+    try (Reader in = new BufferedReader(Files.newBufferedReader(scene, StandardCharsets.UTF_8),
+            1 << 16)) {
+      return AnimationReader.parseFile(in, builder);
+    }
+  }
+
+  /**
+   * A class to build nothing but a count of the statements read, so that only the reader is
+   * measured.
+   */
+  private static final class Counter implements AnimationBuilder<Long> {
+    private long count = 0;
+
+    /**
+     * A method to return the number of statements read.
+     * @return the number of statements
+     */
+    @Override
+    public Long build() {
+      return count;
+    }
+
+    /**
+     * A method to count a canvas statement.
+     * @param x the leftmost x value
+     * @param y the topmost y value
+     * @param width the width of the bounding box
+     * @param height the height of the bounding box
+     * @return this counter
+     */
+    @Override
+    public AnimationBuilder<Long> setBounds(int x, int y, int width, int height) {
+      count++;
+      return this;
+    }
+
+    /**
+     * A method to count a shape statement.
+     * @param name the name of the shape
+     * @param type the type of the shape
+     * @return this counter
+     */
+    @Override
+    public AnimationBuilder<Long> declareShape(String name, String type) {
+      count++;
+      return this;
+    }
+
+    /**
+     * A method to count a motion statement, whose values are those of
+     * {@link AnimationBuilder#addMotion}.
+     * @return this counter
+     */
+    @Override
+    public AnimationBuilder<Long> addMotion(String name, int t1, int x1, int y1, int w1, int h1,
+                                            int r1, int g1, int b1, int t2, int x2, int y2,
+                                            int w2, int h2, int r2, int g2, int b2) {
+      count++;
+      return this;
+    }
+
+    /**
+     * A method to count several motion statements of one shape.
+     * @param name the name of the shape
+     * @param count the number of motions
+     * @param motions the values of the motions, sixteen per motion
+     * @param offset the position in the array of the first value
+     * @return this counter
+     */
+    @Override
+    public AnimationBuilder<Long> addMotions(String name, int count, int[] motions,
+                                             int offset) {
+      this.count += count;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A generator of synthetic animation files for measuring how fast they are read. Every shape walks
+ * through a run of back to back motions, each starting where the last one ended, so every file
+ * generated is a valid animation. Each shape draws its type and motions from a random source of its
+ * own, seeded from the scene seed and its position, so the same settings always give the same
+ * scene, and writing the motions grouped by shape or interleaved across shapes gives the same
+ * animation in a different order.
+ */
+public class SceneGenerator {
+  private static final int CANVAS = 800;
+
+  private final int shapes;
+  private final int motions;
+  private final boolean interleaved;
+  private final double ellipses;
+  private final long seed;
+
+  /**
+   * A method to construct a generator of scenes with the given settings.
+   * @param shapes the number of shapes in the scene
+   * @param motions the number of motions of each shape
+   * @param interleaved whether to write the motions of all shapes round robin, rather than every
+   *          motion of a shape straight after its declaration
+   * @param ellipses the share of shapes, between 0 and 1, that are ellipses rather than rectangles
+   * @param seed the seed the scene is generated from
+   * @throws IllegalArgumentException when a count is negative or the share is not between 0 and 1
+   */
+  public SceneGenerator(int shapes, int motions, boolean interleaved, double ellipses, long seed) {
+    if (shapes < 0 || motions < 0) {
+      throw new IllegalArgumentException("Counts cannot be negative");
+    }
+    else if (ellipses < 0 || ellipses > 1) {
+      throw new IllegalArgumentException("The share of ellipses must be between 0 and 1");
+    }
+    this.shapes = shapes;
+    this.motions = motions;
+    this.interleaved = interleaved;
+    this.ellipses = ellipses;
+    this.seed = seed;
+  }
+
+  /**
+   * A method to return the number of motions in the scene.
+   * @return the number of motion statements written by {@link #write}
+   */
+  public long getMotionCount() {
+    return (long) shapes * motions;
+  }
+
+  /**
+   * A method to write the scene to a file.
+   * @param path the file to write, which is replaced if it exists
+   * @return the size of the file in bytes
+   * @throws IOException when the file cannot be written
+   */
+  public long write(Path path) throws IOException {
+    try (Writer out = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8),
+            1 << 20)) {
+      write(out);
+    }
+    return Files.size(path);
+  }
+
+  /**
+   * A method to write the scene as animation statements.
+   * @param out where to write the statements
+   * @throws IOException when the statements cannot be written
+   */
+  public void write(Appendable out) throws IOException {
+    out.append("canvas 0 0 ").append(Integer.toString(CANVAS)).append(' ')
+            .append(Integer.toString(CANVAS)).append('\n');
+    Walk[] walks = new Walk[interleaved ? shapes : 1];
+    StringBuilder line = new StringBuilder(96);
+    for (int i = 0; i < shapes; i++) {
+      Walk walk = new Walk(i);
+      out.append("shape S").append(Integer.toString(i)).append(' ')
+              .append(walk.type).append('\n');
+      if (interleaved) {
+        walks[i] = walk;
+      }
+      else {
+        for (int m = 0; m < motions; m++) {
+          out.append(walk.next(line));
+        }
+      }
+    }
+    if (interleaved) {
+      for (int m = 0; m < motions; m++) {
+        for (Walk walk : walks) {
+          out.append(walk.next(line));
+        }
+      }
+    }
+  }
+
+  /**
+   * A class to represent one shape walking randomly through its motions.
+   */
+  private final class Walk {
+    private final Random random;
+    private final String name;
+    private final String type;
+    private final int[] state;
+
+    /**
+     * A method to construct the walk of the shape at the given position, in its starting state.
+     * @param index the position of the shape in the scene
+     */
+    private Walk(int index) {
+      this.random = new Random(seed * 1_000_003L + index);
+      this.name = "S" + index;
+      this.type = random.nextDouble() < ellipses ? "ellipse" : "rectangle";
+      int w = 5 + random.nextInt(60);
+      int h = 5 + random.nextInt(60);
+      this.state = new int[]{random.nextInt(20), random.nextInt(CANVAS - w),
+          random.nextInt(CANVAS - h), w, h, random.nextInt(256), random.nextInt(256),
+          random.nextInt(256)};
+    }
+
+    /**
+     * A method to write the next motion of the shape, which starts where the last one ended.
+     * @param line a buffer to write the statement in
+     * @return the motion statement, ending with a newline
+     */
+    private CharSequence next(StringBuilder line) {
+      line.setLength(0);
+      line.append("motion ").append(name);
+      append(line);
+      state[0] += 1 + random.nextInt(10);
+      state[3] = clamp(state[3] + random.nextInt(11) - 5, 5, 64);
+      state[4] = clamp(state[4] + random.nextInt(11) - 5, 5, 64);
+      state[1] = clamp(state[1] + random.nextInt(41) - 20, 0, CANVAS - state[3]);
+      state[2] = clamp(state[2] + random.nextInt(41) - 20, 0, CANVAS - state[4]);
+      for (int c = 5; c < 8; c++) {
+        state[c] = clamp(state[c] + random.nextInt(33) - 16, 0, 255);
+      }
+      append(line);
+      return line.append('\n');
+    }
+
+    /**
+     * A method to write the current state of the shape as the eight values of one end of a motion.
+     * @param line the buffer to write to
+     */
+    private void append(StringBuilder line) {
+      for (int value : state) {
+        line.append(' ').append(value);
+      }
+    }
+  }
+
+  /**
+   * A method to keep a value within a range.
+   * @param value the value to keep in range
+   * @param low the smallest value allowed
+   * @param high the largest value allowed
+   * @return the closest value to the given one within the range
+   */
+  private static int clamp(int value, int low, int high) {
+    return Math.max(low, Math.min(high, value));
+  }
+
+  /**
+   * A method to write a scene to a file from the command line.
+   * @param args the file to write, then optionally the number of shapes, the number of motions of
+   *          each shape, "interleaved" or "grouped", the share of ellipses and the seed
+   * @throws IOException when the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("usage: SceneGenerator file [shapes [motions [interleaved|grouped "
+              + "[ellipses [seed]]]]]");
+      return;
+    }
+    SceneGenerator generator = new SceneGenerator(
+            args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+            args.length > 2 ? Integer.parseInt(args[2]) : 100,
+            args.length <= 3 || args[3].equals("interleaved"),
+            args.length > 4 ? Double.parseDouble(args[4]) : 0.5,
+            args.length > 5 ? Long.parseLong(args[5]) : 1);
+    long size = generator.write(Path.of(args[0]));
+    System.out.printf("%s: %d motions, %d bytes%n", args[0], generator.getMotionCount(), size);
+  }
+}